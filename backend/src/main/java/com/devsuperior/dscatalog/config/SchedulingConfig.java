@@ -0,0 +1,13 @@
+package com.devsuperior.dscatalog.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Liga os metodos @Scheduled (EmailOutboxDispatcher, PasswordRecoverPurger)
+// No perfil de testes fica desligado pra nenhuma thread em segundo plano acessar o banco durante os outros testes
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,42 @@
+package com.devsuperior.dscatalog.config;
+
+import com.devsuperior.dscatalog.resources.filters.ResponseCacheFilter;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+// Formatos de resposta alem do JSON, escolhidos pelo cabeçalho Accept do cliente:
+// Accept: application/cbor ou Accept: application/x-jackson-smile
+// Sem o cabeçalho (ou com application/json) a resposta continua em JSON
+public class WebConfig {
+
+    // Usamos o Jackson2ObjectMapperBuilder do Spring Boot (um novo a cada injeção), assim os formatos binarios
+    // seguem a mesma configuração do JSON (datas, propriedades, modulos)
+    // O Spring Boot coloca estes conversores no lugar dos padrões, depois do conversor JSON
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    // Cache das respostas prontas (corpo + gzip) das listas de produtos e categorias
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(ResponseCache responseCache) {
+
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(new ResponseCacheFilter(responseCache));
+        registration.addUrlPatterns("/products", "/categories");
+        return registration;
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+}
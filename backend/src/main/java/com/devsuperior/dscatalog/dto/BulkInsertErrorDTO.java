@@ -0,0 +1,29 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+// Erro de um item da carga em lote (POST /products/bulk)
+// index é a posição do item no array enviado, começando em 0
+public class BulkInsertErrorDTO implements Serializable {
+
+    private static final Long serialVersionUID = 1L;
+
+    private long index;
+    private String message;
+
+    public BulkInsertErrorDTO() {
+    }
+
+    public BulkInsertErrorDTO(long index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
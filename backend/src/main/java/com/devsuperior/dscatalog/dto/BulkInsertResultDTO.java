@@ -0,0 +1,38 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+// Resultado da carga em lote (POST /products/bulk)
+// Os itens com erro nao sao inseridos, os outros sim
+public class BulkInsertResultDTO implements Serializable {
+
+    private static final Long serialVersionUID = 1L;
+
+    private long inserted;
+    private List<BulkInsertErrorDTO> errors = new ArrayList<>();
+
+    public BulkInsertResultDTO() {
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void addInserted(long count) {
+        inserted += count;
+    }
+
+    public long getFailed() {
+        return errors.size();
+    }
+
+    public List<BulkInsertErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void addError(long index, String message) {
+        errors.add(new BulkInsertErrorDTO(index, message));
+    }
+}
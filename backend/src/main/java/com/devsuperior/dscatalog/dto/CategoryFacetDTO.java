@@ -0,0 +1,34 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+// Quantidade de produtos de uma categoria que atendem a busca atual (usado na barra lateral de categorias)
+public class CategoryFacetDTO implements Serializable {
+
+    private static final Long serialVersionUID = 1L;
+
+    private Long categoryId;
+    private String name;
+    private Long count;
+
+    public CategoryFacetDTO() {
+    }
+
+    public CategoryFacetDTO(Long categoryId, String name, Long count) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.count = count;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,42 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pagina da paginação por cursor (keyset)
+// Em vez de numero da pagina devolvemos o nextCursor, que o cliente manda de volta para buscar a proxima pagina
+// Quando nextCursor for null chegamos ao fim
+public class CursorPageDTO<T> implements Serializable {
+
+    private static final Long serialVersionUID = 1L;
+
+    private List<T> content = new ArrayList<>();
+    private int size;
+    private String nextCursor;
+
+    public CursorPageDTO() {
+    }
+
+    public CursorPageDTO(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
@@ -2,6 +2,7 @@ package com.devsuperior.dscatalog.dto;
 
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.projections.ProductRowProjection;
 import jakarta.persistence.Column;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PastOrPresent;
@@ -88,6 +89,31 @@ public class ProductDTO implements Serializable {
 
     }
 
+    // Copia com as suas proprias categorias, para quem recebe poder alterar sem mexer no original
+    public ProductDTO(ProductDTO dto) {
+        this(dto.getId(), dto.getName(), dto.getDescription(), dto.getPrice(), dto.getImgUrl(), dto.getDate());
+        dto.getCategories().forEach(cat -> this.categories.add(new CategoryDTO(cat.getId(), cat.getName())));
+    }
+
+    // Monta os ProductDTO a partir das linhas produto x categoria (ordenadas por produto), sem passar pela entidade
+    public static List<ProductDTO> fromRows(List<? extends ProductRowProjection> rows) {
+
+        List<ProductDTO> result = new ArrayList<>();
+        ProductDTO current = null;
+
+        for (ProductRowProjection row : rows) {
+            if (current == null || !current.getId().equals(row.getId())) {
+                current = new ProductDTO(row.getId(), row.getName(), row.getDescription(), row.getPrice(),
+                        row.getImgUrl(), row.getDate());
+                result.add(current);
+            }
+            if (row.getCategoryId() != null) {
+                current.getCategories().add(new CategoryDTO(row.getCategoryId(), row.getCategoryName()));
+            }
+        }
+        return result;
+    }
+
     // Getter e Setter
 
     public Long getId() {
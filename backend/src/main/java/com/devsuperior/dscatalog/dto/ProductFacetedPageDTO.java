@@ -0,0 +1,22 @@
+package com.devsuperior.dscatalog.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+
+// Pagina de produtos com o bloco de facets (produtos por categoria)
+// Estende o PageImpl para o JSON continuar igual ao da busca normal, apenas com o campo facets a mais
+public class ProductFacetedPageDTO extends PageImpl<ProductDTO> {
+
+    private final List<CategoryFacetDTO> facets;
+
+    public ProductFacetedPageDTO(Page<ProductDTO> page, List<CategoryFacetDTO> facets) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.facets = facets;
+    }
+
+    public List<CategoryFacetDTO> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,95 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+// Filtros da busca de produtos (/products)
+// nome, categorias, faixa de preço e faixa de data. Os filtros de faixa são opcionais (null = sem limite)
+public class ProductFilterDTO implements Serializable {
+
+    private static final Long serialVersionUID = 1L;
+
+    private String name;
+    private List<Long> categoryIds;
+    private Double minPrice;
+    private Double maxPrice;
+    private Instant fromDate;
+    private Instant toDate;
+
+    public ProductFilterDTO() {
+    }
+
+    // O parametro categoryId chega como "0" (todas) ou uma lista separada por virgula ex. "1,3"
+    public ProductFilterDTO(String name, String categoryId) {
+        this.name = name;
+        this.categoryIds = parseCategoryIds(categoryId);
+    }
+
+    public ProductFilterDTO(String name, String categoryId, Double minPrice, Double maxPrice, Instant fromDate, Instant toDate) {
+        this(name, categoryId);
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    public static List<Long> parseCategoryIds(String categoryId) {
+
+        List<Long> categoryIds = Arrays.asList();
+
+        if(categoryId != null && !"0".equals(categoryId)) {
+            categoryIds = Arrays.asList(categoryId.split(",")).stream().map(
+                    Long::parseLong
+            ).toList();
+        }
+        return categoryIds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Instant getFromDate() {
+        return fromDate;
+    }
+
+    public Instant getToDate() {
+        return toDate;
+    }
+
+    public boolean hasRanges() {
+        return minPrice != null || maxPrice != null || fromDate != null || toDate != null;
+    }
+
+    // Verifica se o produto está dentro das faixas de preço e data (limites inclusivos, igual ao SQL)
+    public boolean matchesRanges(ProductDTO dto) {
+
+        if (minPrice != null && (dto.getPrice() == null || dto.getPrice() < minPrice)) {
+            return false;
+        }
+        if (maxPrice != null && (dto.getPrice() == null || dto.getPrice() > maxPrice)) {
+            return false;
+        }
+        if (fromDate != null && (dto.getDate() == null || dto.getDate().isBefore(fromDate))) {
+            return false;
+        }
+        if (toDate != null && (dto.getDate() == null || dto.getDate().isAfter(toDate))) {
+            return false;
+        }
+        return true;
+    }
+}
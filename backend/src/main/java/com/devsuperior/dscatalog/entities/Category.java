@@ -1,6 +1,8 @@
 package com.devsuperior.dscatalog.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.time.Instant;
@@ -12,6 +14,9 @@ import java.util.Set;
 @Entity
 // A anotação @Table indica que esta classe irá representar uma tabela no banco de dados
 @Table(name = "tb_category")
+// Entidade de referencia, lida muitas vezes e alterada pouco: fica no cache de segundo nivel do Hibernate (ehcache.xml)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category implements Serializable {
 
     private static final Long serialVersionUID = 1L;
@@ -20,8 +25,10 @@ public class Category implements Serializable {
 
     // Anotação pra informar qual atributo será o id
     @Id
-    // Anotação pra deixar o id auto incrementado
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Id gerado por sequence em blocos de 50 (otimizador pooled-lo, ver application.properties)
+    // Diferente do IDENTITY, o Hibernate sabe o id antes do INSERT e consegue gravar os INSERTs em lote
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_category")
+    @SequenceGenerator(name = "seq_category", sequenceName = "seq_category", allocationSize = 50)
     private Long id;
     private String name;
 
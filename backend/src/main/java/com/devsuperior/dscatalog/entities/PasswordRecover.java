@@ -15,9 +15,12 @@ public class PasswordRecover {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
-    private String token;
-    @Column(nullable = false)
+    // Guardamos só o SHA-256 do token (hex), quem ler a tabela nao consegue usar o link enviado por email
+    // unique: a busca pelo token usa o indice da constraint
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+    // Uma linha por email: um novo pedido de recuperação atualiza a linha existente
+    @Column(nullable = false, unique = true)
     private String email;
     @Column(nullable = false)
     private Instant expiration; // validade do token
@@ -32,12 +35,12 @@ public class PasswordRecover {
         this.id = id;
     }
 
-    public String getToken() {
-        return token;
+    public String getTokenHash() {
+        return tokenHash;
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
     }
 
     public String getEmail() {
@@ -10,18 +10,29 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "tb_product")
+// Indice (name, id) usado pela paginação por cursor do ProductRepositoryImpl.searchProductsAfter
+// Indices de price e date para os filtros de faixa e ordenações "mais barato" / "mais novo" do /products
+@Table(name = "tb_product", indexes = {
+        @Index(name = "idx_product_name_id", columnList = "name, id"),
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_date_id", columnList = "date, id")
+})
 public class Product implements IdProjection<Long> {
 
     // Não vamos mais usar
     // private static final Long serialVersionUID = 1L;
 
+    // Quantidade de ids reservados a cada valor da seq_product (tambem usada pelo ProductBulkService)
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     // Atributos
 
     // Anotação pra informar qual atributo será o id
     @Id
-    // Anotação pra deixar o id auto incrementado
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Id gerado por sequence em blocos de 50 (otimizador pooled-lo, ver application.properties)
+    // Diferente do IDENTITY, o Hibernate sabe o id antes do INSERT e consegue gravar os INSERTs em lote
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_product")
+    @SequenceGenerator(name = "seq_product", sequenceName = "seq_product", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String name;
 
@@ -35,6 +46,12 @@ public class Product implements IdProjection<Long> {
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
     private Instant date;
 
+    // Versão do registro, incrementada pelo Hibernate a cada update (inclusive quando as categorias mudam)
+    // Usada para montar a ETag do GET /products/{id} sem carregar o produto
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private Long version;
+
     // Anotação pra indicar que o relacionamento será de N:N muitos pra muitos
     // ou seja 1 produto pode ter varias categorias e 1 categoria pode ter varios produtos
     @ManyToMany
@@ -110,6 +127,10 @@ public class Product implements IdProjection<Long> {
         this.date = date;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public Set<Category> getCategories() {
         return categories;
     }
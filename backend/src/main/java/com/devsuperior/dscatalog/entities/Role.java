@@ -1,6 +1,8 @@
 package com.devsuperior.dscatalog.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 
 import java.io.Serializable;
@@ -11,6 +13,9 @@ import java.util.Objects;
 @Entity
 // A anotação @Table indica que esta classe irá representar uma tabela no banco de dados
 @Table(name = "tb_role")
+// Entidade de referencia, lida muitas vezes e alterada pouco: fica no cache de segundo nivel do Hibernate (ehcache.xml)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 // Vamos implementar a interface GrantedAuthority do spring security
 public class Role implements GrantedAuthority {
 
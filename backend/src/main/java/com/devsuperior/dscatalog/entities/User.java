@@ -18,8 +18,10 @@ public class User implements UserDetails {
 
     // Anotação pra informar qual atributo será o id
     @Id
-    // Anotação pra deixar o id auto incrementado
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Id gerado por sequence em blocos de 50 (otimizador pooled-lo, ver application.properties)
+    // Diferente do IDENTITY, o Hibernate sabe o id antes do INSERT e consegue gravar os INSERTs em lote
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_user")
+    @SequenceGenerator(name = "seq_user", sequenceName = "seq_user", allocationSize = 50)
     private Long id;
 
     private String firstName;
@@ -0,0 +1,20 @@
+package com.devsuperior.dscatalog.projections;
+
+import java.time.Instant;
+
+public interface ProductRowProjection {
+
+    // Uma linha por produto e categoria, resultado dos metodos streamAllForExport e searchProductRows da classe ProductRepository
+    // Produto sem categoria vem em uma linha só com categoryId e categoryName nulos
+    // Com essas linhas montamos o ProductDTO direto, sem carregar a entidade Product (ProductDTO.fromRows)
+
+    Long getId();
+    String getName();
+    String getDescription();
+    Double getPrice();
+    String getImgUrl();
+    Instant getDate();
+    Long getCategoryId();
+    String getCategoryName();
+
+}
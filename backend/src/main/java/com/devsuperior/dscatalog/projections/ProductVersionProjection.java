@@ -0,0 +1,13 @@
+package com.devsuperior.dscatalog.projections;
+
+import java.time.Instant;
+
+public interface ProductVersionProjection {
+
+    // Versão do produto (@Version), incrementada a cada alteração dele
+    Long getVersion();
+
+    // Ultima alteração das categorias do produto (renomear uma categoria nao incrementa a versão do produto)
+    Instant getCategoriesChangedAt();
+
+}
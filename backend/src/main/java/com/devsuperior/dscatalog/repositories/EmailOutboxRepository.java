@@ -0,0 +1,28 @@
+package com.devsuperior.dscatalog.repositories;
+
+import com.devsuperior.dscatalog.entities.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Emails prontos para envio, travados para esta transação
+    // SKIP LOCKED pula as linhas travadas por outra instancia da aplicação, entao cada email é pego por um só dispatcher
+    @Query(nativeQuery = true,
+            value = """
+                    SELECT * FROM tb_email_outbox
+                    WHERE failed = FALSE AND next_attempt_at <= :now
+                    ORDER BY id
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED
+                    """)
+    List<EmailOutbox> lockDueEmails(Instant now, int limit);
+
+    long countByFailed(boolean failed);
+
+}
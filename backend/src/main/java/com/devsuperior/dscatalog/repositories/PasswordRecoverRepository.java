@@ -1,6 +1,7 @@
 package com.devsuperior.dscatalog.repositories;
 
 import com.devsuperior.dscatalog.entities.PasswordRecover;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,9 +12,15 @@ import java.util.List;
 @Repository
 public interface PasswordRecoverRepository extends JpaRepository<PasswordRecover, Long> {
 
-    // Buscar no banco pelo token informado e se o tempo de expiração do token for superior ao instante atual
+    // Buscar no banco pelo hash do token informado e se o tempo de expiração do token for superior ao instante atual
     // ou seja é um token que ainda é válido
-    @Query("SELECT obj FROM PasswordRecover obj WHERE obj.token = :token AND obj.expiration > :now")
-    List<PasswordRecover> searchValidTokens(String token, Instant now);
+    @Query("SELECT obj FROM PasswordRecover obj WHERE obj.tokenHash = :tokenHash AND obj.expiration > :now")
+    List<PasswordRecover> searchValidTokens(String tokenHash, Instant now);
+
+    PasswordRecover findByEmail(String email);
+
+    // Ids dos tokens vencidos, em lotes (PasswordRecoverPurger)
+    @Query("SELECT obj.id FROM PasswordRecover obj WHERE obj.expiration <= :now ORDER BY obj.id")
+    List<Long> searchExpiredIds(Instant now, Pageable pageable);
 
 }
@@ -1,21 +1,28 @@
 package com.devsuperior.dscatalog.repositories;
 
 import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.projections.ProductRowProjection;
+import com.devsuperior.dscatalog.projections.ProductVersionProjection;
 import com.devsuperior.dscatalog.projections.ProductProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 // Estendemos a interface JpaRepository do spring, com isso ja temos vários metodos para acessar os dados no banco
 // <Product, Long> precisamos informar a Entidade e o tipo do id dela
 // Ao colocar a anotação @Repository indicamos que ele será um componente injetavel do spring
 // e em CategoryService temos que colocar ele como @Autowired
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     // Metodo customizado que criamos, para que seja uma consulta paginada
     // com trecho do nome do produto sendo opcional, lista de categorias do produto opcional
@@ -52,4 +59,47 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT obj FROM Product obj JOIN FETCH obj.categories WHERE obj.id IN :productIds")
     List<Product> searchProductsWithCategories(List<Long> productIds);
 
+    // Todos os produtos com suas categorias para a exportação do catalogo (GET /products/export)
+    // O Stream le o resultado aos poucos (cursor do banco, fetch size abaixo) em vez de carregar tudo na memoria
+    // Como é uma projeção, nenhuma entidade fica presa no contexto de persistencia durante a leitura
+    // Precisa ser consumido dentro de uma transação e fechado no final (try-with-resources)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT obj.id AS id, obj.name AS name, obj.description AS description, obj.price AS price,
+                   obj.imgUrl AS imgUrl, obj.date AS date, cat.id AS categoryId, cat.name AS categoryName
+            FROM Product obj
+            LEFT JOIN obj.categories cat
+            ORDER BY obj.id, cat.id
+            """)
+    Stream<ProductRowProjection> streamAllForExport();
+
+    // Produtos com suas categorias como linhas de projeção, para montar os ProductDTO sem carregar entidades
+    // (sem entidades no contexto de persistencia, sem copia para o dirty checking e nada para o flush verificar)
+    @Query("""
+            SELECT obj.id AS id, obj.name AS name, obj.description AS description, obj.price AS price,
+                   obj.imgUrl AS imgUrl, obj.date AS date, cat.id AS categoryId, cat.name AS categoryName
+            FROM Product obj
+            LEFT JOIN obj.categories cat
+            WHERE obj.id IN :productIds
+            ORDER BY obj.id, cat.id
+            """)
+    List<ProductRowProjection> searchProductRows(List<Long> productIds);
+
+    // Somente a versão do produto e a ultima alteração das suas categorias, usado na ETag do GET /products/{id}
+    // Busca pela chave primaria e pela tb_product_category do produto, sem carregar a lista de categorias
+    @Query("SELECT obj.version AS version, MAX(COALESCE(cat.updatedAt, cat.createdAt)) AS categoriesChangedAt " +
+            "FROM Product obj LEFT JOIN obj.categories cat WHERE obj.id = :id GROUP BY obj.id, obj.version")
+    Optional<ProductVersionProjection> findVersionById(Long id);
+
+    // Somente id e nome de todos os produtos, usado para montar o autocomplete (ProductNameSuggester)
+    @Query("SELECT obj.id AS id, obj.name AS name FROM Product obj")
+    List<ProductProjection> searchAllNames();
+
+    // Todos os produtos com suas categorias, usado para montar o indice de busca em memoria
+    @Query("SELECT DISTINCT obj FROM Product obj LEFT JOIN FETCH obj.categories")
+    List<Product> searchAllWithCategories();
+
 }
@@ -0,0 +1,39 @@
+package com.devsuperior.dscatalog.repositories;
+
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.util.ProductCursor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Consultas do ProductRepository que precisamos montar na mão (implementadas em ProductRepositoryImpl)
+// O Spring Data junta essa interface com o ProductRepository pelo sufixo Impl da classe
+public interface ProductRepositoryCustom {
+
+    // Pagina de produtos ja com as categorias e na ordem pedida, em uma unica consulta
+    // O total fica de fora (countProducts), assim ele pode ser derivado da pagina ou vir do ProductCountCache
+    List<ProductDTO> searchProductsPage(ProductFilterDTO filter, boolean fullText, Pageable pageable);
+
+    // Mesma consulta do searchProductsPage, mas cada produto é entregue para a action assim que sai do ResultSet
+    // (na ordem da pagina). Retorna a quantidade de produtos entregues
+    int streamProductsPage(ProductFilterDTO filter, boolean fullText, Pageable pageable, Consumer<ProductDTO> action);
+
+    // Mesma consulta, trazendo um produto a mais que o tamanho da pagina para saber se existe proxima pagina
+    List<ProductDTO> searchProductsSlice(ProductFilterDTO filter, boolean fullText, Pageable pageable);
+
+    // Paginação por cursor (keyset): em vez de OFFSET buscamos os produtos que vem depois do ultimo
+    // (nome, id) da pagina anterior, na ordem nome, id. Com o indice idx_product_name_id o banco vai direto
+    // para a posição do cursor, entao a pagina 5000 custa o mesmo que a primeira
+    List<ProductDTO> searchProductsAfter(ProductFilterDTO filter, boolean fullText, ProductCursor after, int limit);
+
+    // Total de produtos que passam no filtro
+    long countProducts(ProductFilterDTO filter, boolean fullText);
+
+    // Facets da busca: quantos produtos do filtro existem em cada categoria, em uma unica consulta
+    // Nao aplicamos o filtro de categoria aqui, assim a barra lateral continua mostrando todas as categorias
+    List<CategoryFacetDTO> searchCategoryFacets(ProductFilterDTO filter, boolean fullText);
+
+}
@@ -0,0 +1,287 @@
+package com.devsuperior.dscatalog.repositories;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import com.devsuperior.dscatalog.util.ProductCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Colunas que podem ser usadas na ordenação (propriedade do Pageable -> coluna da consulta)
+    // Montamos o ORDER BY na mão, entao só aceitamos o que estiver aqui
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "tb_product.id",
+            "name", "tb_product.name",
+            "price", "tb_product.price",
+            "date", "tb_product.date"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductDTO> searchProductsPage(ProductFilterDTO filter, boolean fullText, Pageable pageable) {
+
+        List<ProductDTO> content = new ArrayList<>();
+        streamProductsPage(filter, fullText, pageable, content::add);
+        return content;
+    }
+
+    @Override
+    public int streamProductsPage(ProductFilterDTO filter, boolean fullText, Pageable pageable, Consumer<ProductDTO> action) {
+
+        if (pageable.isUnpaged()) {
+            return streamProducts(filter, fullText, pageable.getSort(), null, null, 0L, action);
+        }
+        return streamProducts(filter, fullText, pageable.getSort(), null, pageable.getPageSize(), pageable.getOffset(), action);
+    }
+
+    @Override
+    public List<ProductDTO> searchProductsSlice(ProductFilterDTO filter, boolean fullText, Pageable pageable) {
+
+        List<ProductDTO> content = new ArrayList<>();
+        if (pageable.isUnpaged()) {
+            streamProducts(filter, fullText, pageable.getSort(), null, null, 0L, content::add);
+        } else {
+            // Um a mais só para saber se existe proxima pagina
+            streamProducts(filter, fullText, pageable.getSort(), null, pageable.getPageSize() + 1, pageable.getOffset(), content::add);
+        }
+        return content;
+    }
+
+    @Override
+    public List<ProductDTO> searchProductsAfter(ProductFilterDTO filter, boolean fullText, ProductCursor after, int limit) {
+
+        List<ProductDTO> content = new ArrayList<>();
+        streamProducts(filter, fullText, Sort.by("name"), after, limit, 0L, content::add);
+        return content;
+    }
+
+    @Override
+    public long countProducts(ProductFilterDTO filter, boolean fullText) {
+
+        Query query = entityManager.createNativeQuery("SELECT COUNT(*) FROM tb_product WHERE " + filterSql(filter, fullText));
+        bindFilter(query, filter, fullText);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    @Override
+    public List<CategoryFacetDTO> searchCategoryFacets(ProductFilterDTO filter, boolean fullText) {
+
+        // Mesmo filtro sem as categorias
+        ProductFilterDTO withoutCategories = new ProductFilterDTO(filter.getName(), "0", filter.getMinPrice(),
+                filter.getMaxPrice(), filter.getFromDate(), filter.getToDate());
+
+        // Cada par (produto, categoria) aparece uma vez na tb_product_category, entao o COUNT(*) ja nao repete produtos
+        Query query = entityManager.createNativeQuery("""
+                SELECT tb_category.id, tb_category.name, COUNT(*)
+                FROM tb_product
+                INNER JOIN tb_product_category ON tb_product_category.product_id = tb_product.id
+                INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                WHERE %s
+                GROUP BY tb_category.id, tb_category.name
+                ORDER BY tb_category.name, tb_category.id
+                """.formatted(filterSql(withoutCategories, fullText)));
+        bindFilter(query, withoutCategories, fullText);
+
+        List<CategoryFacetDTO> result = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            result.add(new CategoryFacetDTO(((Number) columns[0]).longValue(), (String) columns[1],
+                    ((Number) columns[2]).longValue()));
+        }
+        return result;
+    }
+
+    // tb_page: os ids da pagina, com o filtro, o ORDER BY e o LIMIT/OFFSET direto na tb_product
+    // Assim o banco pode parar de ler assim que tiver a pagina (ou ir pelo indice da ordenação), em vez de
+    // numerar e contar todas as linhas que passaram no filtro. O total é a consulta separada countProducts
+    // Depois juntamos com as categorias e repetimos a ordenação, assim a pagina ja sai na ordem certa
+    // after: paginação por cursor (keyset), só os produtos depois do (nome, id) do cursor
+    // A comparação de linha (name, id) > (:lastName, :lastId) vira o inicio da leitura no indice idx_product_name_id
+    // Escrita com OR (name > x OR (name = x AND id > y)) o PostgreSQL nao usa como limite do indice e le tudo desde o começo
+    private int streamProducts(ProductFilterDTO filter, boolean fullText, Sort sort, ProductCursor after,
+                               Integer limit, long offset, Consumer<ProductDTO> action) {
+
+        String orderBy = orderBy(sort);
+        String sql = """
+                SELECT tb_product.id, tb_product.name, tb_product.description, tb_product.price,
+                       tb_product.img_url, tb_product.date, tb_category.id, tb_category.name
+                FROM (
+                    SELECT tb_product.id
+                    FROM tb_product
+                    WHERE %s
+                    %s
+                    ORDER BY %s
+                    %s
+                ) AS tb_page
+                INNER JOIN tb_product ON tb_product.id = tb_page.id
+                INNER JOIN tb_product_category ON tb_product_category.product_id = tb_product.id
+                INNER JOIN tb_category ON tb_category.id = tb_product_category.category_id
+                ORDER BY %s, tb_category.id
+                """.formatted(filterSql(filter, fullText),
+                after == null ? "" : "AND (tb_product.name, tb_product.id) > (:lastName, :lastId)",
+                orderBy,
+                limit == null ? "" : "LIMIT :limit OFFSET :offset",
+                orderBy);
+
+        Query query = entityManager.createNativeQuery(sql);
+        bindFilter(query, filter, fullText);
+        if (after != null) {
+            query.setParameter("lastName", after.getName());
+            query.setParameter("lastId", after.getId());
+        }
+        if (limit != null) {
+            query.setParameter("limit", limit);
+            query.setParameter("offset", offset);
+        }
+
+        int count = 0;
+        ProductDTO current = null;
+
+        // As linhas sao lidas do ResultSet aos poucos e cada produto é entregue assim que a linha do proximo aparece,
+        // sem montar a lista da pagina inteira
+        try (Stream<?> rows = query.getResultStream()) {
+            Iterator<?> it = rows.iterator();
+            while (it.hasNext()) {
+                Object[] columns = (Object[]) it.next();
+
+                Long id = ((Number) columns[0]).longValue();
+                if (current == null || !current.getId().equals(id)) {
+                    if (current != null) {
+                        action.accept(current);
+                        count++;
+                    }
+                    current = new ProductDTO(id, (String) columns[1], (String) columns[2], toDouble(columns[3]),
+                            (String) columns[4], toInstant(columns[5]));
+                }
+                current.getCategories().add(new CategoryDTO(((Number) columns[6]).longValue(), (String) columns[7]));
+            }
+        }
+        if (current != null) {
+            action.accept(current);
+            count++;
+        }
+        return count;
+    }
+
+    // Filtro por nome (LIKE '%nome%', ou a busca textual do PostgreSQL quando fullText), categorias e faixas de preço e data
+    // A busca textual quebra o nome em palavras (to_tsvector) e compara com as palavras buscadas (plainto_tsquery),
+    // atendida pelo indice GIN idx_product_name_tsv (ver db/postgresql-updates.sql). A expressao precisa ser identica a do indice
+    // Usamos EXISTS em vez de INNER JOIN + DISTINCT: o resultado é o mesmo (produtos com alguma das categorias),
+    // mas o banco nao precisa eliminar repetidos e consegue usar os indices de price e date da tb_product
+    private static String filterSql(ProductFilterDTO filter, boolean fullText) {
+
+        StringBuilder sql = new StringBuilder("""
+                EXISTS (
+                    SELECT 1 FROM tb_product_category
+                    WHERE tb_product_category.product_id = tb_product.id
+                """);
+
+        if (!filter.getCategoryIds().isEmpty()) {
+            sql.append(" AND tb_product_category.category_id IN (:categoryIds)");
+        }
+        sql.append(")");
+
+        if (filter.getMinPrice() != null) {
+            sql.append(" AND tb_product.price >= :minPrice");
+        }
+        if (filter.getMaxPrice() != null) {
+            sql.append(" AND tb_product.price <= :maxPrice");
+        }
+        if (filter.getFromDate() != null) {
+            sql.append(" AND tb_product.date >= :fromDate");
+        }
+        if (filter.getToDate() != null) {
+            sql.append(" AND tb_product.date <= :toDate");
+        }
+        if (fullText) {
+            sql.append(" AND (:name = '' OR to_tsvector('simple', tb_product.name) @@ plainto_tsquery('simple', :name))");
+        } else {
+            sql.append(" AND (LOWER(tb_product.name) LIKE LOWER(CONCAT('%',:name,'%')))");
+        }
+        return sql.toString();
+    }
+
+    private static void bindFilter(Query query, ProductFilterDTO filter, boolean fullText) {
+
+        if (!filter.getCategoryIds().isEmpty()) {
+            query.setParameter("categoryIds", filter.getCategoryIds());
+        }
+        if (filter.getMinPrice() != null) {
+            query.setParameter("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            query.setParameter("maxPrice", filter.getMaxPrice());
+        }
+        if (filter.getFromDate() != null) {
+            query.setParameter("fromDate", filter.getFromDate());
+        }
+        if (filter.getToDate() != null) {
+            query.setParameter("toDate", filter.getToDate());
+        }
+        query.setParameter("name", fullText ? filter.getName().trim() : filter.getName());
+    }
+
+    // Sempre desempatamos pelo id para a ordem das paginas ser estavel
+    private static String orderBy(Sort sort) {
+
+        List<String> columns = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new BadRequestException("Ordenação inválida: " + order.getProperty());
+            }
+            columns.add(column + (order.isDescending() ? " DESC" : " ASC"));
+        }
+        if (sort.getOrderFor("id") == null) {
+            columns.add("tb_product.id ASC");
+        }
+        return String.join(", ", columns);
+    }
+
+    private static Double toDouble(Object value) {
+        return (value == null) ? null : ((Number) value).doubleValue();
+    }
+
+    // Dependendo do banco/driver a coluna TIMESTAMP chega como Timestamp, LocalDateTime, etc
+    // Convertemos do mesmo jeito que o Hibernate faz ao ler o Instant da entidade (fuso da JVM)
+    private static Instant toInstant(Object value) {
+
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant();
+        }
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime.atZone(ZoneId.systemDefault()).toInstant();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toInstant();
+        }
+        throw new IllegalStateException("Tipo de data inesperado: " + value.getClass());
+    }
+}
@@ -3,17 +3,23 @@ package com.devsuperior.dscatalog.resources;
 import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.services.CategoryService;
+import com.devsuperior.dscatalog.services.cache.CategorySnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,15 +35,29 @@ public class CategoryResource {
     @Autowired
     private CategoryService service;
 
+    @Value("${category.cache-control.max-age-seconds:60}")
+    private long maxAgeSeconds;
+
     // METODOS ---
 
+    // A lista vem da copia em memoria do CategoryService, com uma ETag calculada a partir do conteudo
+    // Se o cliente mandar If-None-Match com a mesma ETag respondemos 304 sem corpo
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> findAll() {
+    public ResponseEntity<List<CategoryDTO>> findAll(WebRequest request) {
+
+        CategorySnapshot snapshot = service.findAllSnapshot();
 
-        List<CategoryDTO> list = service.findAll();
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).cacheControl(cacheControl()).build();
+        }
 
         // Vamos retornar uma resposta
-        return ResponseEntity.ok().body(list);
+        return ResponseEntity.ok().eTag(snapshot.getEtag()).cacheControl(cacheControl()).body(snapshot.getCategories());
+    }
+
+    // Navegadores e CDNs podem guardar a lista por maxAgeSeconds e depois revalidar com a ETag
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
     }
 
     // Buscar categoria por id
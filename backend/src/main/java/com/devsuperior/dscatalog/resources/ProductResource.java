@@ -1,20 +1,38 @@
 package com.devsuperior.dscatalog.resources;
 
+import com.devsuperior.dscatalog.dto.BulkInsertResultDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.projections.ProductProjection;
+import com.devsuperior.dscatalog.services.ProductBulkService;
+import com.devsuperior.dscatalog.services.ProductExportService;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 // Anotação pra indicar que esta classe será um controlador rest que responderá requisições
 @RestController
@@ -26,28 +44,196 @@ public class ProductResource {
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ProductExportService exportService;
+
+    @Autowired
+    private ProductBulkService bulkService;
+
     @GetMapping
     public ResponseEntity<Page<ProductDTO>> findAll(
             @RequestParam(value = "name", defaultValue = "") String name,
             @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            // datas no formato ISO ex. 2020-07-20T00:00:00Z
+            @RequestParam(value = "fromDate", required = false) Instant fromDate,
+            @RequestParam(value = "toDate", required = false) Instant toDate,
+            @RequestParam(value = "facets", defaultValue = "false") boolean facets,
+            @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy,
+            @RequestParam(value = "count", required = false) String count,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "stream", defaultValue = "false") boolean stream,
             Pageable pageable
     ) {
-        Page<ProductDTO> list = service.findAllPaged(name, categoryId, pageable);
+        // Cada modo (count=none, count=approximate, stream=true, cursor) tem o seu metodo e os mapeamentos se excluem
+        // Se um deles chegou aqui é porque a requisição misturou dois modos
+        if (cursor != null || stream || "none".equals(count) || "approximate".equals(count)) {
+            throw new BadRequestException("Os parametros count, stream e cursor não podem ser combinados");
+        }
+
+        // Os facets sao contados com a busca exata, nao correspondem aos resultados da busca fuzzy
+        if (fuzzy && facets) {
+            throw new BadRequestException("Os parametros fuzzy e facets não podem ser combinados");
+        }
+
+        ProductFilterDTO filter = new ProductFilterDTO(name, categoryId, minPrice, maxPrice, fromDate, toDate);
+
+        // Com fuzzy=true a busca por nome tolera erros de digitação (precisa do indice em memoria, senao 400/503)
+        // Com facets=true a resposta traz tambem a quantidade de produtos por categoria
+        // A ordenação pode ser por name, price ou date ex. /products?sort=price,asc ou /products?sort=date,desc
+        Page<ProductDTO> list;
+        if (fuzzy) {
+            list = service.findAllPagedFuzzy(filter, pageable);
+        } else if (facets) {
+            list = service.findAllPagedWithFacets(filter, pageable);
+        } else {
+            list = service.findAllPaged(filter, pageable);
+        }
 
         // Vamos retornar uma resposta
         return ResponseEntity.ok().body(list);
     }
 
+    // Busca sem total de elementos, ex. /products?count=none
+    // Retorna um Slice (só informa se existe proxima pagina) e evita o COUNT(*) no banco
+    @GetMapping(params = {"count=none", "!cursor", "stream!=true"})
+    public ResponseEntity<Slice<ProductDTO>> findAllSliced(
+            @RequestParam(value = "name", defaultValue = "") String name,
+            @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "fromDate", required = false) Instant fromDate,
+            @RequestParam(value = "toDate", required = false) Instant toDate,
+            Pageable pageable
+    ) {
+        ProductFilterDTO filter = new ProductFilterDTO(name, categoryId, minPrice, maxPrice, fromDate, toDate);
+
+        Slice<ProductDTO> list = service.findAllSliced(filter, pageable);
+
+        return ResponseEntity.ok().body(list);
+    }
+
+    // Busca com total aproximado (vindo de cache), ex. /products?count=approximate
+    @GetMapping(params = {"count=approximate", "!cursor", "stream!=true"})
+    public ResponseEntity<Page<ProductDTO>> findAllApproximate(
+            @RequestParam(value = "name", defaultValue = "") String name,
+            @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "fromDate", required = false) Instant fromDate,
+            @RequestParam(value = "toDate", required = false) Instant toDate,
+            Pageable pageable
+    ) {
+        ProductFilterDTO filter = new ProductFilterDTO(name, categoryId, minPrice, maxPrice, fromDate, toDate);
+
+        Page<ProductDTO> list = service.findAllPagedApproximate(filter, pageable);
+
+        return ResponseEntity.ok().body(list);
+    }
+
+    // Autocomplete da caixa de busca, ex. /products/suggest?q=mac
+    @GetMapping(value = "/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam(value = "q", defaultValue = "") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        List<String> list = service.suggest(query, limit);
+
+        return ResponseEntity.ok().body(list);
+    }
+
+    // Mesma busca do findAll, mas cada produto é escrito na resposta assim que sai do banco, ex. /products?stream=true&size=500
+    // O corpo tem o formato {"content": [...], "page": {"size", "number", "totalElements", "totalPages"}}
+    @GetMapping(params = {"stream=true", "count!=none", "count!=approximate", "!cursor"})
+    public ResponseEntity<StreamingResponseBody> findAllStreamed(
+            @RequestParam(value = "name", defaultValue = "") String name,
+            @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "fromDate", required = false) Instant fromDate,
+            @RequestParam(value = "toDate", required = false) Instant toDate,
+            Pageable pageable
+    ) {
+        ProductFilterDTO filter = new ProductFilterDTO(name, categoryId, minPrice, maxPrice, fromDate, toDate);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> exportService.writePage(filter, pageable, out));
+    }
+
+    // Exportação do catalogo inteiro, ex. /products/export?format=csv
+    // A resposta é escrita aos poucos (StreamingResponseBody) enquanto os produtos sao lidos do banco
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        if (format.equalsIgnoreCase("ndjson")) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                    .body(out -> exportService.exportNdjson(out));
+        }
+        if (format.equalsIgnoreCase("csv")) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\"")
+                    .body(out -> exportService.exportCsv(out));
+        }
+        throw new BadRequestException("Formato inválido: " + format);
+    }
+
+    // Paginação por cursor, usada quando a requisição tem o parametro cursor
+    // ex. /products?cursor= (primeira pagina) e depois /products?cursor=<nextCursor da resposta anterior>
+    @GetMapping(params = {"cursor", "count!=none", "count!=approximate", "stream!=true"})
+    public ResponseEntity<CursorPageDTO<ProductDTO>> findAllByCursor(
+            @RequestParam(value = "name", defaultValue = "") String name,
+            @RequestParam(value = "categoryId", defaultValue = "0") String categoryId,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "fromDate", required = false) Instant fromDate,
+            @RequestParam(value = "toDate", required = false) Instant toDate,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        ProductFilterDTO filter = new ProductFilterDTO(name, categoryId, minPrice, maxPrice, fromDate, toDate);
+
+        CursorPageDTO<ProductDTO> page = service.findAllByCursor(filter, cursor, size);
+
+        return ResponseEntity.ok().body(page);
+    }
+
     // Buscar categoria por id
     // Com esta anotação ficará /categories/id
     @GetMapping(value = "/{id}")
     // @PathVariable faz com que pegue a variavel informada na rota e coloque no parametro ex. http://localhost:8080/Product/1
-    public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
+    public ResponseEntity<ProductDTO> findById(@PathVariable Long id, WebRequest request) {
+
+        // Primeiro buscamos só a versão do produto. Se o cliente mandou If-None-Match com a mesma ETag
+        // respondemos 304 sem carregar o produto
+        // A ETag é lida antes do produto, entao ela nunca é mais nova que o corpo devolvido (no pior caso o cliente baixa de novo)
+        Optional<String> etag = service.findEtag(id);
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
 
         // Vamos usar o service.findById(); para chamar o metodo que busca categorias por id
         ProductDTO dto = service.findById(id);
         // Vamos retornar uma resposta
-        return ResponseEntity.ok().body(dto);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        etag.ifPresent(response::eTag);
+        return response.body(dto);
+    }
+
+    // Carga em lote, o corpo é um array de ProductDTO (o mesmo json do POST /products)
+    // Os produtos validos sao gravados e os invalidos voltam no relatorio com a posição no array
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_OPERATOR')")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkInsertResultDTO> bulkInsert(InputStream body) throws IOException {
+
+        BulkInsertResultDTO result = bulkService.insert(body);
+
+        return ResponseEntity.ok().body(result);
     }
 
     // Restrição de requisição por roles
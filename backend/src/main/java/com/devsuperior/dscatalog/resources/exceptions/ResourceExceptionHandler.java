@@ -1,9 +1,11 @@
 package com.devsuperior.dscatalog.resources.exceptions;
 
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
-import com.devsuperior.dscatalog.services.exceptions.EmailException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.ServiceUnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -49,6 +51,23 @@ public class ResourceExceptionHandler {
         return ResponseEntity.status(status).body(error);
     }
 
+    // Duas alterações simultaneas no mesmo registro (@Version): a segunda a fazer commit perde
+    // O cliente deve buscar o recurso de novo e repetir a alteração
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<StandardError> conflict(OptimisticLockingFailureException e, HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.CONFLICT;
+
+        StandardError error = new StandardError();
+        error.setTimestamp(Instant.now());
+        error.setStatus(status.value()); // CONFLICT é o erro 409
+        error.setError("Conflito de versão");
+        error.setMessage("O recurso foi alterado por outra requisição, busque novamente e repita a alteração");
+        error.setPath(request.getRequestURI()); // pega o caminho da requisição que deu erro
+
+        return ResponseEntity.status(status).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationError> validation(MethodArgumentNotValidException e, HttpServletRequest request) {
 
@@ -76,15 +95,30 @@ public class ResourceExceptionHandler {
         return ResponseEntity.status(status).body(error);
     }
 
-    @ExceptionHandler(EmailException.class)
-    public ResponseEntity<StandardError> email(EmailException e, HttpServletRequest request) {
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<StandardError> badRequest(BadRequestException e, HttpServletRequest request) {
 
         HttpStatus status = HttpStatus.BAD_REQUEST;
 
         StandardError error = new StandardError();
         error.setTimestamp(Instant.now());
         error.setStatus(status.value()); // BAD_REQUEST é o erro 400
-        error.setError("Email exception");
+        error.setError("Bad request");
+        error.setMessage(e.getMessage());
+        error.setPath(request.getRequestURI()); // pega o caminho da requisição que deu erro
+
+        return ResponseEntity.status(status).body(error);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<StandardError> serviceUnavailable(ServiceUnavailableException e, HttpServletRequest request) {
+
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        StandardError error = new StandardError();
+        error.setTimestamp(Instant.now());
+        error.setStatus(status.value()); // SERVICE_UNAVAILABLE é o erro 503
+        error.setError("Service unavailable");
         error.setMessage(e.getMessage());
         error.setPath(request.getRequestURI()); // pega o caminho da requisição que deu erro
 
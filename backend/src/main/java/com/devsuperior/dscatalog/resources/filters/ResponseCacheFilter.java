@@ -0,0 +1,125 @@
+package com.devsuperior.dscatalog.resources.filters;
+
+import com.devsuperior.dscatalog.services.cache.CachedResponse;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+// Serve os GET do /products e /categories a partir do ResponseCache
+// Na primeira vez a requisição passa pelo controller, guardamos o corpo (e a versão gzip) junto com a ETag
+// Nas proximas respondemos direto do cache: 304 se o If-None-Match bater, gzip se o cliente aceitar, senão o corpo original
+// Registrado no WebConfig só para as urls /products e /categories
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseCache cache;
+
+    public ResponseCacheFilter(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    // Respostas escritas aos poucos (stream=true) nao passam pelo cache
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !cache.isEnabled()
+                || !"GET".equals(request.getMethod())
+                || request.getParameter("stream") != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        // O Accept entra na chave porque a mesma url pode responder JSON, CBOR ou Smile
+        String key = request.getRequestURI() + "?" + Objects.toString(request.getQueryString(), "")
+                + "|" + Objects.toString(request.getHeader(HttpHeaders.ACCEPT), "");
+
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            write(request, response, cached);
+            return;
+        }
+
+        long generation = cache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        // Só guardamos respostas 200 completas (304, erros e respostas assincronas seguem normalmente)
+        if (request.isAsyncStarted() || wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        String etag = wrapper.getHeader(HttpHeaders.ETAG);
+        if (etag == null) {
+            etag = etag(body);
+        }
+        cached = cache.put(key, wrapper.getContentType(), etag, wrapper.getHeader(HttpHeaders.CACHE_CONTROL), body, generation);
+        write(request, response, cached);
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached) throws IOException {
+
+        response.setHeader(HttpHeaders.ETAG, cached.getEtag());
+        response.setHeader(HttpHeaders.VARY, "Accept, Accept-Encoding");
+        if (cached.getCacheControl() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cached.getCacheControl());
+        }
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(cached.getEtag()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = cached.getBody();
+        if (cached.getGzipBody() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cached.getGzipBody();
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.getContentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Ex. "gzip, deflate, br" aceita; "gzip;q=0" recusa
+    private static boolean acceptsGzip(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                return tokens.length < 2 || !tokens[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Quando o controller nao manda ETag, usamos um hash do corpo
+    private static String etag(byte[] body) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,10 +6,14 @@ import com.devsuperior.dscatalog.entities.PasswordRecover;
 import com.devsuperior.dscatalog.entities.User;
 import com.devsuperior.dscatalog.repositories.PasswordRecoverRepository;
 import com.devsuperior.dscatalog.repositories.UserRepository;
+import com.devsuperior.dscatalog.services.cache.UserDetailsCache;
+import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.util.Utils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -18,7 +22,11 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 
@@ -37,6 +45,12 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PasswordRecoverTokenSigner tokenSigner;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Value("${email.password-recover.token.minutes}")
     private Long tokenMinutes;
 
@@ -55,38 +69,100 @@ public class AuthService {
             throw new ResourceNotFoundException("Email não encontrado");
         }
 
-        String token = UUID.randomUUID().toString();
+        Instant expiration = Instant.now().plusSeconds(tokenMinutes * 60L);
 
-        PasswordRecover entity = new PasswordRecover();
-        entity.setEmail(body.getEmail());
-        entity.setToken(token);
-        entity.setExpiration(Instant.now().plusSeconds(tokenMinutes * 60L));
-        // Salvar no banco
-        entity = passwordRecoverRepository.save(entity);
+        // Modo signed: o token é assinado e nada é gravado na tb_password_recover
+        String token = tokenSigner.isEnabled()
+                ? tokenSigner.sign(user.getEmail(), expiration, user.getPassword())
+                : saveTableToken(body.getEmail(), expiration);
 
         String text = "Acesse o link para definir uma nova senha\n\n"
                 + recoverUri + token + ". Validade de " + tokenMinutes + " minutos";
 
-        // Enviar o email com o link para redefinir a senha
-        emailService.sendEmail(body.getEmail(), "Recuperação de senha", text);
+        // Colocar na fila de envio o email com o link para redefinir a senha
+        // O envio pelo SMTP acontece depois do commit, no EmailOutboxDispatcher
+        emailService.queueEmail(body.getEmail(), "Recuperação de senha", text);
     }
 
     @Transactional
     public void saveNewPassword(NewPasswordDTO body) {
 
+        // Buscar o usuario dono do token, se o token for válido
+        User user = tokenSigner.isEnabled()
+                ? findUserBySignedToken(body.getToken())
+                : findUserByTableToken(body.getToken());
+
+        // Vamos encriptar a senha antes de salvar
+        user.setPassword(passwordEncoder.encode(body.getPassword()));
+        // salvar
+        user = userRepository.save(user);
+
+        // O login nao pode continuar aceitando a senha antiga que estava em cache
+        String email = user.getEmail();
+        Utils.afterCommit(() -> userDetailsCache.invalidate(email));
+    }
+
+    // Modo table: token aleatorio, gravado na tb_password_recover (só o hash)
+    private String saveTableToken(String email, Instant expiration) {
+
+        String token = UUID.randomUUID().toString();
+
+        // Uma linha por email: se ja existe um pedido anterior ele é atualizado e o token antigo deixa de valer
+        PasswordRecover entity = passwordRecoverRepository.findByEmail(email);
+        if (entity == null) {
+            entity = new PasswordRecover();
+            entity.setEmail(email);
+        }
+        entity.setTokenHash(hashToken(token));
+        entity.setExpiration(expiration);
+        try {
+            // Salvar no banco
+            passwordRecoverRepository.saveAndFlush(entity);
+        }
+        catch (DataIntegrityViolationException e) {
+            // Dois pedidos ao mesmo tempo para o mesmo email: o outro inseriu a linha primeiro (constraint unique)
+            throw new DatabaseException("Recuperação de senha já solicitada para este email, tente novamente");
+        }
+        return token;
+    }
+
+    private User findUserByTableToken(String token) {
+
         // Buscar o token que seja válido
-        List<PasswordRecover> result = passwordRecoverRepository.searchValidTokens(body.getToken(), Instant.now());
+        List<PasswordRecover> result = passwordRecoverRepository.searchValidTokens(hashToken(token), Instant.now());
         // Se não encontrar o token válido lançaremos uma excessao
         if(result.size() == 0) {
             throw new ResourceNotFoundException("Token inválido");
         }
 
-        // mas se o token for válido iremos salvar a nova senha no banco
-        User user = userRepository.findByEmail(result.get(0).getEmail());
-        // Vamos encriptar a senha antes de salvar
-        user.setPassword(passwordEncoder.encode(body.getPassword()));
-        // salvar
-        user = userRepository.save(user);
+        // O token só pode ser usado uma vez
+        passwordRecoverRepository.delete(result.get(0));
+
+        return userRepository.findByEmail(result.get(0).getEmail());
+    }
+
+    // Modo signed: a assinatura, a validade e a impressão da senha sao conferidas sem acessar a tb_password_recover
+    private User findUserBySignedToken(String token) {
+
+        PasswordRecoverTokenSigner.Claims claims = tokenSigner.verify(token, Instant.now())
+                .orElseThrow(() -> new ResourceNotFoundException("Token inválido"));
+
+        // Se a senha ja foi trocada depois que o token foi gerado (inclusive com este mesmo token) a impressão nao confere
+        User user = userRepository.findByEmail(claims.email());
+        if (user == null || !tokenSigner.matchesPassword(claims, user.getPassword())) {
+            throw new ResourceNotFoundException("Token inválido");
+        }
+        return user;
+    }
+
+    // SHA-256 (hex) do token, que é o que fica gravado na tb_password_recover
+    static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     // Obter usuario logado
@@ -4,17 +4,26 @@ import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
+import com.devsuperior.dscatalog.services.cache.CategorySnapshot;
+import com.devsuperior.dscatalog.services.cache.ProductQueryCache;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import com.devsuperior.dscatalog.services.cache.TtlCache;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.search.ProductSearchIndex;
+import com.devsuperior.dscatalog.util.Utils;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,18 +32,52 @@ import java.util.stream.Collectors;
 @Service
 public class CategoryService {
 
+    private static final String SNAPSHOT_KEY = "categories";
+
     // Para fazer as buscas precisaremos da instacia do CategoryRepository
     @Autowired
     private CategoryRepository repository;
 
-    // Anotação que indica que as operações são somente leitura no banco. Isso ajuda o Spring a otimizar o desempenho e a evitar bloqueios desnecessários.
-    // Usado em metodos que apenas leem dados findAll(), findById()...
-    @Transactional(readOnly = true)
+    // As paginas de busca e o indice de produtos guardam o nome das categorias de cada produto
+    @Autowired
+    private ProductQueryCache productQueryCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    // Lista de categorias em memoria. As categorias mudam poucas vezes por dia, entao o /categories
+    // responde desta copia sem ir ao banco. O insert, update e delete descartam a copia depois do commit
+    // O descarte só acontece na instancia que fez a alteração, entao a copia tambem vence depois do TTL
+    // (alterações feitas em outra instancia ou direto no banco aparecem em no maximo ttl-seconds)
+    private final TtlCache<String, CategorySnapshot> snapshotCache;
+
+    public CategoryService(@Value("${category.snapshot.ttl-seconds:60}") long snapshotTtlSeconds) {
+        this.snapshotCache = new TtlCache<>(1, Duration.ofSeconds(snapshotTtlSeconds));
+    }
+
     public List<CategoryDTO> findAll() {
+        return findAllSnapshot().getCategories();
+    }
 
-        List<Category> list = repository.findAll();
+    // Sem @Transactional de proposito: quando a copia ja existe nao abrimos transação nem pegamos conexão
+    public CategorySnapshot findAllSnapshot() {
 
-        return list.stream().map(x -> new CategoryDTO(x)).toList();
+        return snapshotCache.get(SNAPSHOT_KEY, () -> {
+            // Ordenado por id para a ETag ser sempre a mesma para o mesmo conteudo
+            List<Category> list = repository.findAll(Sort.by("id"));
+            return new CategorySnapshot(list.stream().map(x -> new CategoryDTO(x)).toList());
+        });
+    }
+
+    private void invalidateSnapshot() {
+        Utils.afterCommit(() -> {
+            snapshotCache.clear();
+            // As respostas prontas do /categories e do /products (que trazem o nome das categorias)
+            responseCache.clear();
+        });
     }
 
     // Busca categoria por id
@@ -62,6 +105,7 @@ public class CategoryService {
         entity.setName(dto.getName());
         // Agora vamos salvar o objeto no banco
         entity = repository.save(entity);
+        invalidateSnapshot();
 
         // agora temos que retornar a entidade como forma de CategoryDTO
         return new CategoryDTO(entity);
@@ -82,6 +126,13 @@ public class CategoryService {
             // Salvando a categoria atualizada no banco
             entity = repository.save(entity);
 
+            // O nome novo precisa aparecer nos produtos da categoria. Como uma categoria pode estar em
+            // praticamente todas as buscas, limpamos o cache de buscas inteiro
+            // (inserir uma categoria nova ou remover uma sem produtos nao afeta nenhuma busca)
+            productSearchIndex.renameCategory(entity.getId(), entity.getName());
+            Utils.afterCommit(() -> productQueryCache.clear());
+            invalidateSnapshot();
+
             // Retornamos a entidade convertida pra CategoryDTO
             return new CategoryDTO(entity);
 
@@ -103,6 +154,7 @@ public class CategoryService {
         // Mas se passou pela verificação acima, iremos no try tentar deletar a categoria pelo id recebido por parametro
         try {
             repository.deleteById(id);
+            invalidateSnapshot();
 
         } catch (DataIntegrityViolationException e) {
             // Caso tentemos deletar um id que nao existe o erro será capturado pelo DataIntegrityViolationException
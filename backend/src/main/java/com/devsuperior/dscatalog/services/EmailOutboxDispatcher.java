@@ -0,0 +1,205 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.entities.EmailOutbox;
+import com.devsuperior.dscatalog.repositories.EmailOutboxRepository;
+import com.devsuperior.dscatalog.services.cache.TtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Envia os emails gravados na tb_email_outbox (EmailService.queueEmail)
+// A cada execução reserva um lote de emails, envia o lote inteiro em uma unica conexão SMTP e grava o resultado:
+// os enviados sao apagados e os que falharam voltam para a fila com espera crescente (backoff exponencial)
+// O SMTP fica fora das transações, entao uma conexão do banco nunca espera pelo servidor de email
+// As metricas ficam em /actuator/metrics/email.outbox.pending, email.outbox.failed e email.outbox.sent
+@Component
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository repository;
+    private final JavaMailSender emailSender;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.mail.username}")
+    private String emailFrom;
+
+    // Emails enviados por conexão SMTP
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+
+    // Depois de tantas falhas o email fica marcado como failed e nao é mais tentado
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    // Espera depois da 1ª falha, dobrando a cada nova falha até o maximo
+    @Value("${email.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${email.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    // Tempo que um lote fica reservado enquanto é enviado. Se a aplicação cair no meio do envio
+    // os emails voltam para a fila depois deste tempo (podem ser enviados de novo)
+    @Value("${email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    // Totais de pendentes (false) e falhos (true) das metricas. Contados só quando as metricas sao lidas,
+    // e guardados por alguns segundos para cada leitura nao rodar dois COUNT(*) na tb_email_outbox
+    private final TtlCache<Boolean, Long> counts;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository repository, JavaMailSender emailSender,
+                                 TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                                 @Value("${email.outbox.metrics-ttl-seconds:15}") long metricsTtlSeconds) {
+        this.repository = repository;
+        this.emailSender = emailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.counts = new TtlCache<>(2, Duration.ofSeconds(metricsTtlSeconds));
+
+        Gauge.builder("email.outbox.pending", this, x -> x.count(false))
+                .description("Emails aguardando envio")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.failed", this, x -> x.count(true))
+                .description("Emails que esgotaram as tentativas de envio")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("email.outbox.sent")
+                .description("Emails enviados")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("email.outbox.retries")
+                .description("Envios que falharam e foram reagendados")
+                .register(meterRegistry);
+    }
+
+    // Esvazia a fila: continua pegando lotes enquanto vierem cheios
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private long count(boolean failed) {
+        return counts.get(failed, () -> repository.countByFailed(failed));
+    }
+
+    // Reserva um lote empurrando o nextAttemptAt para depois do lease, em uma transação curta
+    private List<EmailOutbox> claimBatch() {
+
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutbox> batch = repository.lockDueEmails(now, batchSize);
+            for (EmailOutbox email : batch) {
+                email.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return batch;
+        });
+    }
+
+    private void send(List<EmailOutbox> batch) {
+
+        // Email -> erro de envio. O que nao estiver aqui foi enviado
+        Map<EmailOutbox, Exception> failures = new HashMap<>();
+
+        List<MimeMessage> messages = new ArrayList<>();
+        Map<MimeMessage, EmailOutbox> emailByMessage = new HashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                MimeMessage message = toMimeMessage(email);
+                messages.add(message);
+                emailByMessage.put(message, email);
+            }
+            catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                // O JavaMailSender envia o array inteiro na mesma conexão SMTP
+                emailSender.send(messages.toArray(new MimeMessage[0]));
+            }
+            catch (MailSendException e) {
+                // Traz só as mensagens que falharam (ou todas, se nem conectou)
+                e.getFailedMessages().forEach((message, error) -> failures.put(emailByMessage.get(message), error));
+            }
+            catch (MailException e) {
+                // Ex. falha de autenticação: nenhuma mensagem foi enviada
+                for (EmailOutbox email : emailByMessage.values()) {
+                    failures.put(email, e);
+                }
+            }
+        }
+
+        List<Long> sentIds = new ArrayList<>();
+        for (EmailOutbox email : batch) {
+            if (!failures.containsKey(email)) {
+                sentIds.add(email.getId());
+            }
+        }
+
+        Instant now = Instant.now();
+        for (Map.Entry<EmailOutbox, Exception> entry : failures.entrySet()) {
+            EmailOutbox email = entry.getKey();
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(truncate(String.valueOf(entry.getValue().getMessage()), 500));
+            if (email.getAttempts() >= maxAttempts) {
+                email.setFailed(true);
+            }
+            else {
+                email.setNextAttemptAt(now.plusSeconds(backoff(email.getAttempts())));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.deleteAllByIdInBatch(sentIds);
+            repository.saveAll(failures.keySet());
+        });
+
+        sentCounter.increment(sentIds.size());
+        retryCounter.increment(failures.size());
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+        helper.setFrom(emailFrom);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+        return message;
+    }
+
+    // backoffSeconds, 2x, 4x, ... limitado a maxBackoffSeconds
+    private long backoff(int attempts) {
+        int exponent = Math.min(attempts - 1, 30);
+        return Math.min(maxBackoffSeconds, backoffSeconds * (1L << exponent));
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength);
+    }
+}
@@ -1,34 +1,32 @@
 package com.devsuperior.dscatalog.services;
 
-import com.devsuperior.dscatalog.dto.EmailDTO;
-import com.devsuperior.dscatalog.services.exceptions.EmailException;
+import com.devsuperior.dscatalog.entities.EmailOutbox;
+import com.devsuperior.dscatalog.repositories.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 
 @Service
 public class EmailService {
 
-    @Value("${spring.mail.username}")
-    private String emailFrom;
-
     @Autowired
-    private JavaMailSender emailSender;
+    private EmailOutboxRepository outboxRepository;
+
+    // O email nao é enviado aqui: ele é gravado na tb_email_outbox dentro da transação de quem chamou
+    // (se ela sofrer rollback o email some junto) e o EmailOutboxDispatcher envia em segundo plano
+    @Transactional
+    public void queueEmail(String to, String subject, String body) {
+
+        Instant now = Instant.now();
 
-    public void sendEmail(String to, String subject, String body) {
-        try{
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(emailFrom);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            emailSender.send(message);
-        }
-        catch (MailException e){
-            throw new EmailException("Failed to send email");
-        }
+        EmailOutbox entity = new EmailOutbox();
+        entity.setRecipient(to);
+        entity.setSubject(subject);
+        entity.setBody(body);
+        entity.setCreatedAt(now);
+        entity.setNextAttemptAt(now);
+        outboxRepository.save(entity);
     }
 }
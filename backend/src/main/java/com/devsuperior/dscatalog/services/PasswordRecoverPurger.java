@@ -0,0 +1,47 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.repositories.PasswordRecoverRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+// Apaga periodicamente os tokens de recuperação de senha vencidos da tb_password_recover
+// A remoção é feita em lotes de chunkSize linhas, cada lote na sua propria transação,
+// pra nao travar a tabela nem gerar uma transação enorme quando houver muitos tokens vencidos
+@Component
+public class PasswordRecoverPurger {
+
+    @Autowired
+    private PasswordRecoverRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${email.password-recover.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    // Retorna a quantidade de tokens apagados
+    @Scheduled(fixedDelayString = "${email.password-recover.purge.interval-ms:3600000}")
+    public long purgeExpiredTokens() {
+
+        Instant now = Instant.now();
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = repository.searchExpiredIds(now, PageRequest.of(0, chunkSize));
+                repository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            deleted += chunk;
+        } while (chunk == chunkSize);
+
+        return deleted;
+    }
+}
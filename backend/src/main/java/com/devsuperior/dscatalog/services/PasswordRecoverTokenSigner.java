@@ -0,0 +1,129 @@
+package com.devsuperior.dscatalog.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+// Tokens de recuperação de senha assinados (email.password-recover.token.mode=signed)
+// O token carrega o email, a validade e uma impressão digital do hash da senha atual, assinados com HMAC-SHA256:
+//   base64url(email \n validade \n impressão) . base64url(hmac)
+// A verificação nao precisa da tb_password_recover. Depois que a senha muda a impressão nao confere mais,
+// entao o token só pode ser usado uma vez
+@Component
+public class PasswordRecoverTokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final int FINGERPRINT_BYTES = 12;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+
+    public PasswordRecoverTokenSigner(
+            @Value("${email.password-recover.token.mode:table}") String mode,
+            @Value("${email.password-recover.token.secret:}") String secret
+    ) {
+        if (!mode.equals("table") && !mode.equals("signed")) {
+            throw new IllegalStateException("email.password-recover.token.mode deve ser table ou signed");
+        }
+        this.enabled = mode.equals("signed");
+        if (enabled && secret.length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("email.password-recover.token.secret precisa ter pelo menos "
+                    + MIN_SECRET_LENGTH + " caracteres no modo signed");
+        }
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    // true no modo signed, false no modo table (token aleatorio gravado na tb_password_recover)
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String sign(String email, Instant expiration, String passwordHash) {
+
+        String payload = email + "\n" + expiration.getEpochSecond() + "\n" + fingerprint(passwordHash);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(hmac(payloadBytes));
+    }
+
+    // Retorna o conteudo do token se a assinatura confere e ele ainda nao venceu
+    // A impressão da senha é conferida depois, com o usuario carregado (matchesPassword)
+    public Optional<Claims> verify(String token, Instant now) {
+
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        // Comparação em tempo constante pra nao revelar quantos bytes da assinatura estavam certos
+        if (!MessageDigest.isEqual(hmac(payloadBytes), signature)) {
+            return Optional.empty();
+        }
+
+        String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\n", -1);
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+        Instant expiration;
+        try {
+            expiration = Instant.ofEpochSecond(Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (!expiration.isAfter(now)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Claims(parts[0], expiration, parts[2]));
+    }
+
+    // A senha do usuario ainda é a mesma de quando o token foi gerado
+    public boolean matchesPassword(Claims claims, String passwordHash) {
+        return MessageDigest.isEqual(
+                claims.fingerprint().getBytes(StandardCharsets.UTF_8),
+                fingerprint(passwordHash).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Primeiros bytes do HMAC do hash da senha: muda quando a senha muda e nao revela nada sobre ela
+    private String fingerprint(String passwordHash) {
+        byte[] mac = hmac(("password\n" + passwordHash).getBytes(StandardCharsets.UTF_8));
+        return ENCODER.encodeToString(Arrays.copyOf(mac, FINGERPRINT_BYTES));
+    }
+
+    private byte[] hmac(byte[] data) {
+        if (key == null) {
+            throw new IllegalStateException("email.password-recover.token.secret nao configurado");
+        }
+        try {
+            // Mac nao é thread-safe, entao criamos um por chamada
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Claims(String email, Instant expiration, String fingerprint) {
+    }
+}
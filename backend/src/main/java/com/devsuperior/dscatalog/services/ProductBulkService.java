@@ -0,0 +1,266 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.BulkInsertResultDTO;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.cache.ProductCountCache;
+import com.devsuperior.dscatalog.services.cache.ProductQueryCache;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import com.devsuperior.dscatalog.services.search.ProductNameSuggester;
+import com.devsuperior.dscatalog.services.search.ProductSearchIndex;
+import com.devsuperior.dscatalog.util.Utils;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Carga de produtos em lote (POST /products/bulk), usada pela carga noturna dos fornecedores
+// O array de produtos é lido aos poucos (sem carregar o corpo inteiro na memoria) e gravado com JDBC em lotes:
+// um INSERT em lote para os produtos e outro para a tb_product_category, com um commit a cada chunkSize produtos
+// Os ids sao reservados da seq_product do mesmo jeito que o Hibernate faz (pooled-lo), entao nao colidem com o ProductService
+// Os itens invalidos nao interrompem a carga, eles voltam no relatorio de erros com a sua posição no array
+@Service
+public class ProductBulkService {
+
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO tb_product (id, name, description, price, img_url, date) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PRODUCT_CATEGORY_SQL =
+            "INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)";
+
+    // Quantidade de produtos gravados em cada transação
+    @Value("${product.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Mesmas validações do @Valid do POST /products
+    @Autowired
+    private Validator validator;
+
+    // As categorias vem da lista em memoria, sem consulta por produto
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductNameSuggester nameSuggester;
+
+    @Autowired
+    private ProductCountCache countCache;
+
+    @Autowired
+    private ProductQueryCache queryCache;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    public BulkInsertResultDTO insert(InputStream body) throws IOException {
+
+        Map<Long, String> categoryNames = categoryService.findAllSnapshot().getCategories().stream()
+                .collect(Collectors.toMap(CategoryDTO::getId, CategoryDTO::getName));
+
+        BulkInsertResultDTO result = new BulkInsertResultDTO();
+        List<BulkRow> chunk = new ArrayList<>();
+        long index = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("O corpo deve ser um array de produtos");
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+
+                if (token == null) {
+                    result.addError(index, "Array de produtos incompleto");
+                    break;
+                }
+
+                long current = index++;
+                JsonNode node = objectMapper.readTree(parser);
+
+                ProductDTO dto;
+                try {
+                    dto = objectMapper.treeToValue(node, ProductDTO.class);
+                } catch (JsonProcessingException e) {
+                    result.addError(current, "Produto inválido: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = validate(dto, categoryNames);
+                if (error != null) {
+                    result.addError(current, error);
+                    continue;
+                }
+
+                chunk.add(new BulkRow(current, dto));
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // JSON quebrado no meio do array: nao da para continuar lendo, mas gravamos o que ja foi lido
+            result.addError(index, "JSON inválido: " + e.getOriginalMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            flush(chunk, result);
+        }
+        return result;
+    }
+
+    // Retorna a mensagem de erro do produto, ou null se ele pode ser gravado
+    // Tambem troca as categorias do DTO pelas da lista em memoria (id sem repetição e com o nome certo)
+    private String validate(ProductDTO dto, Map<Long, String> categoryNames) {
+
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        Map<Long, CategoryDTO> categories = new LinkedHashMap<>();
+        for (CategoryDTO cat : dto.getCategories()) {
+            if (cat == null || cat.getId() == null || !categoryNames.containsKey(cat.getId())) {
+                return "categories: categoria não encontrada " + (cat == null ? null : cat.getId());
+            }
+            categories.put(cat.getId(), new CategoryDTO(cat.getId(), categoryNames.get(cat.getId())));
+        }
+        dto.getCategories().clear();
+        dto.getCategories().addAll(categories.values());
+        return null;
+    }
+
+    // Grava o lote em uma transação. Se o banco recusar algum item o lote inteiro volta,
+    // entao gravamos um por um para descobrir qual item falhou e gravar os outros
+    private void flush(List<BulkRow> chunk, BulkInsertResultDTO result) {
+
+        assignIds(chunk);
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertChunk(chunk));
+            result.addInserted(chunk.size());
+        } catch (DataAccessException e) {
+            for (BulkRow row : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertChunk(List.of(row)));
+                    result.addInserted(1);
+                } catch (DataAccessException ex) {
+                    result.addError(row.index(), "Erro ao gravar: " + ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // Os ids vem da seq_product em blocos, uma ida ao banco a cada Product.ID_ALLOCATION_SIZE produtos
+    // Reservados antes da transação: se o lote voltar, a gravação item por item usa os mesmos ids
+    private void assignIds(List<BulkRow> chunk) {
+
+        String nextValSql = nextProductIdSql();
+        long nextId = 0;
+        long blockEnd = 0;
+        for (BulkRow row : chunk) {
+            if (nextId == blockEnd) {
+                nextId = jdbcTemplate.queryForObject(nextValSql, Long.class);
+                blockEnd = nextId + Product.ID_ALLOCATION_SIZE;
+            }
+            row.dto().setId(nextId++);
+        }
+    }
+
+    private void insertChunk(List<BulkRow> chunk) {
+
+        List<Object[]> productCategories = new ArrayList<>();
+        for (BulkRow row : chunk) {
+            ProductDTO dto = row.dto();
+            for (CategoryDTO cat : dto.getCategories()) {
+                productCategories.add(new Object[]{dto.getId(), cat.getId()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductDTO dto = chunk.get(i).dto();
+                ps.setLong(1, dto.getId());
+                ps.setString(2, dto.getName());
+                ps.setString(3, dto.getDescription());
+                ps.setObject(4, dto.getPrice(), Types.DOUBLE);
+                ps.setString(5, dto.getImgUrl());
+                ps.setTimestamp(6, dto.getDate() == null ? null : Timestamp.from(dto.getDate()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_CATEGORY_SQL, productCategories);
+
+        // Mesmo que o ProductService.insert faz, mas uma vez por lote
+        List<ProductDTO> dtos = chunk.stream().map(BulkRow::dto).toList();
+        Utils.afterCommit(() -> {
+            for (ProductDTO dto : dtos) {
+                if (searchIndex.isEnabled()) {
+                    searchIndex.put(dto);
+                }
+                nameSuggester.put(dto.getId(), dto.getName());
+            }
+            countCache.clear();
+            queryCache.clear();
+            responseCache.clear();
+        });
+    }
+
+    // SELECT do proximo valor da seq_product no dialeto do banco em uso (H2 ou PostgreSQL)
+    private String nextProductIdSql() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSequenceNextValString("seq_product");
+    }
+
+    // Produto do lote e a sua posição no array recebido
+    private record BulkRow(long index, ProductDTO dto) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.projections.ProductRowProjection;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.cache.ProductCountCache;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Respostas de produtos escritas direto no OutputStream, sem montar listas antes de serializar:
+// a exportação do catalogo inteiro (GET /products/export) e a pagina em streaming (GET /products?stream=true)
+// Os produtos sao lidos do banco aos poucos e escritos na resposta um por vez,
+// entao a memoria usada é a mesma com 10 mil ou 10 milhões de produtos
+@Service
+public class ProductExportService {
+
+    // A cada quantos produtos mandamos o que ja foi escrito para o cliente
+    private static final int FLUSH_INTERVAL = 1000;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductCountCache countCache;
+
+    // Mesmo parametro do ProductService
+    @Value("${product.search.full-text:false}")
+    private boolean fullTextSearch;
+
+    // ObjectMapper do Spring, assim as datas saem no mesmo formato das outras respostas
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Pagina de produtos no formato {"content": [...], "page": {"size", "number", "totalElements", "totalPages"}}
+    // (mesmo formato do PagedModel do Spring Data), com o mesmo filtro e ordenação do GET /products
+    // O total so é conhecido depois de ler as linhas, por isso o bloco page vem depois do content
+    @Transactional(readOnly = true)
+    public void writePage(ProductFilterDTO filter, Pageable pageable, OutputStream out) throws IOException {
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("content");
+
+        int count;
+        try {
+            count = repository.streamProductsPage(filter, fullTextSearch, pageable, dto -> {
+                try {
+                    generator.writeObject(dto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Primeira pagina incompleta ou ultima pagina: o total sai da propria pagina, senao do COUNT(*) em cache
+        long total = (count < pageable.getPageSize() && (count > 0 || pageable.getOffset() == 0))
+                ? pageable.getOffset() + count
+                : countCache.get(filter, () -> repository.countProducts(filter, fullTextSearch));
+
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("page");
+        generator.writeNumberField("size", pageable.getPageSize());
+        generator.writeNumberField("number", pageable.getPageNumber());
+        generator.writeNumberField("totalElements", total);
+        generator.writeNumberField("totalPages", pageable.getPageSize() == 0 ? 1 : (total + pageable.getPageSize() - 1) / pageable.getPageSize());
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    // Um ProductDTO em json por linha (application/x-ndjson)
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream out) throws IOException {
+
+        ObjectWriter writer = objectMapper.writerFor(ProductDTO.class);
+        Writer output = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        forEachProduct(dto -> {
+            try {
+                output.write(writer.writeValueAsString(dto));
+                output.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, output);
+        output.flush();
+    }
+
+    // Uma linha por produto, as categorias ficam nas colunas categoryIds e categoryNames separadas por |
+    @Transactional(readOnly = true)
+    public void exportCsv(OutputStream out) throws IOException {
+
+        Writer output = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        output.write("id,name,description,price,imgUrl,date,categoryIds,categoryNames\r\n");
+
+        forEachProduct(dto -> {
+            try {
+                output.write(dto.getId() + ","
+                        + csv(dto.getName()) + ","
+                        + csv(dto.getDescription()) + ","
+                        + (dto.getPrice() == null ? "" : dto.getPrice()) + ","
+                        + csv(dto.getImgUrl()) + ","
+                        + (dto.getDate() == null ? "" : dto.getDate()) + ","
+                        + dto.getCategories().stream().map(cat -> String.valueOf(cat.getId())).collect(Collectors.joining("|")) + ","
+                        + csv(dto.getCategories().stream().map(CategoryDTO::getName).collect(Collectors.joining("|")))
+                        + "\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, output);
+        output.flush();
+    }
+
+    // As linhas vem ordenadas por produto, entao juntamos as categorias do mesmo produto
+    // e entregamos o ProductDTO assim que aparece a linha do proximo produto
+    private void forEachProduct(Consumer<ProductDTO> action, Writer output) throws IOException {
+
+        try (Stream<ProductRowProjection> rows = repository.streamAllForExport()) {
+
+            Iterator<ProductRowProjection> it = rows.iterator();
+            ProductDTO current = null;
+            long count = 0;
+
+            while (it.hasNext()) {
+                ProductRowProjection row = it.next();
+
+                if (current == null || !current.getId().equals(row.getId())) {
+                    if (current != null) {
+                        action.accept(current);
+                        if (++count % FLUSH_INTERVAL == 0) {
+                            output.flush();
+                        }
+                    }
+                    current = new ProductDTO(row.getId(), row.getName(), row.getDescription(), row.getPrice(),
+                            row.getImgUrl(), row.getDate());
+                }
+                if (row.getCategoryId() != null) {
+                    current.getCategories().add(new CategoryDTO(row.getCategoryId(), row.getCategoryName()));
+                }
+            }
+            if (current != null) {
+                action.accept(current);
+            }
+        } catch (UncheckedIOException e) {
+            // O cliente fechou a conexão no meio da exportação
+            throw e.getCause();
+        }
+    }
+
+    // Campo de texto no formato CSV: entre aspas quando tem virgula, aspas ou quebra de linha
+    private static String csv(String value) {
+
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,27 +1,41 @@
 package com.devsuperior.dscatalog.services;
 
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFacetedPageDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
-import com.devsuperior.dscatalog.projections.ProductProjection;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.cache.ProductCountCache;
+import com.devsuperior.dscatalog.services.cache.ProductQueryCache;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.ServiceUnavailableException;
+import com.devsuperior.dscatalog.services.search.ProductNameSuggester;
+import com.devsuperior.dscatalog.services.search.ProductSearchIndex;
+import com.devsuperior.dscatalog.util.ProductCursor;
 import com.devsuperior.dscatalog.util.Utils;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,52 +49,176 @@ public class ProductService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    // Quando true (PostgreSQL) a busca por nome usa o indice de texto em vez do LIKE '%nome%'
+    // no H2 do perfil test deixamos false e continuamos com o LIKE
+    @Value("${product.search.full-text:false}")
+    private boolean fullTextSearch;
 
+    // Indice invertido em memoria, quando habilitado e pronto responde a busca sem ir ao banco
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductCountCache countCache;
+
+    // Autocomplete de nomes mantido em memoria
+    @Autowired
+    private ProductNameSuggester nameSuggester;
+
+    // Cache das paginas de busca mais usadas
+    @Autowired
+    private ProductQueryCache queryCache;
+
+    // Respostas prontas (corpo + gzip) do GET /products
+    @Autowired
+    private ResponseCache responseCache;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 50;
+
+    // Busca com todos os filtros (nome, categorias, faixa de preço e de data)
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findAllPaged(ProductFilterDTO filter, Pageable pageable) {
+
+        if (searchIndex.isReady()) {
+            Page<ProductDTO> result = searchIndex.search(filter, pageable);
+            if (result != null) {
+                return result;
+            }
+        }
+        return findAllPagedFromDatabase(filter, pageable);
+    }
+
+    private Page<ProductDTO> findAllPagedFromDatabase(ProductFilterDTO filter, Pageable pageable) {
+
+        // Uma consulta traz a pagina ja ordenada e com as categorias (LIMIT/OFFSET direto na tb_product)
+        // O total só é contado quando nao da para deduzir pela propria pagina (ex. primeira pagina incompleta)
+        // e o COUNT(*) fica no ProductCountCache. As paginas mais buscadas ficam no ProductQueryCache
+        return queryCache.get(filter, pageable, () -> PageableExecutionUtils.getPage(
+                repository.searchProductsPage(filter, fullTextSearch, pageable), pageable, () -> countProducts(filter)));
+    }
+
+    // Busca tolerante a erros de digitação, respondida pelo indice em memoria (ProductSearchIndex)
+    // o resultado vem ordenado pela proximidade com o texto buscado
+    // Ligada por product.search.fuzzy.enabled, sem depender da listagem normal estar no indice
+    // Nao existe versão dessa busca no banco: sem o indice respondemos erro em vez de trocar pela busca exata
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findAllPagedFuzzy(ProductFilterDTO filter, Pageable pageable) {
+
+        if (!searchIndex.isEnabled()) {
+            throw new BadRequestException("Busca fuzzy indisponível: product.search.fuzzy.enabled=false");
+        }
+        if (!searchIndex.isLoaded()) {
+            throw new ServiceUnavailableException("Índice de busca ainda não está pronto, tente novamente");
+        }
+        return searchIndex.searchFuzzy(filter, pageable);
+    }
+
+    // Busca normal + facets (quantidade de produtos por categoria para os mesmos filtros, menos o de categoria)
+    // A pagina e os facets vem sempre da mesma fonte: os dois do indice em memoria ou os dois do banco
+    @Transactional(readOnly = true)
+    public ProductFacetedPageDTO findAllPagedWithFacets(ProductFilterDTO filter, Pageable pageable) {
+
+        if (searchIndex.isReady()) {
+            Page<ProductDTO> page = searchIndex.search(filter, pageable);
+            if (page != null) {
+                return new ProductFacetedPageDTO(page, searchIndex.facets(filter));
+            }
+        }
+
+        Page<ProductDTO> page = findAllPagedFromDatabase(filter, pageable);
+        return new ProductFacetedPageDTO(page, repository.searchCategoryFacets(filter, fullTextSearch));
+    }
+
+    // Busca sem o total de elementos (Slice): só informa se existe proxima pagina
+    // Nao executa o COUNT(*) da busca, o que praticamente corta pela metade o trabalho do banco
     @Transactional(readOnly = true)
-    public Page<ProductDTO> findAllPaged(
-            String name,
-            String categoryId,
-            Pageable pageable
-    ) {
-        List<Long> categoryIds = Arrays.asList();
-
-        if(!"0".equals(categoryId)) {
-            categoryIds = Arrays.asList(categoryId.split(",")).stream().map(
-                    Long::parseLong
-            ).toList();
+    public Slice<ProductDTO> findAllSliced(ProductFilterDTO filter, Pageable pageable) {
+
+        // A consulta traz um produto a mais que o tamanho da pagina só para saber se existe proxima pagina
+        List<ProductDTO> content = repository.searchProductsSlice(filter, fullTextSearch, pageable);
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
         }
 
-        Page<ProductProjection> page = repository.searchProducts(categoryIds, name, pageable);
-        List<Long> productIds = page.map(x -> x.getId()).toList();
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    // Busca com total aproximado: a pagina vem do Slice e o total vem do ProductCountCache
+    // O COUNT(*) só é executado quando o total daquele filtro nao está no cache (ou expirou)
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findAllPagedApproximate(ProductFilterDTO filter, Pageable pageable) {
+
+        Slice<ProductDTO> slice = findAllSliced(filter, pageable);
 
-        // Fazemos a consulta dos produtos passando os ids da pagina que buscamos acima
-        // este resultado estará desordenado
-        List<Product> entities = repository.searchProductsWithCategories(productIds);
-        // Aqui geramos uma nova lista de entidades ordenada baseada na ordenadação da pagina
-        entities = (List<Product>) Utils.replace(page.getContent(), entities);
+        long total = countProducts(filter);
 
-        List<ProductDTO> dtos = entities.stream().map(p -> new ProductDTO(p, p.getCategories())).toList();
+        // O total do cache pode estar atrasado, mas nunca pode contradizer a pagina que acabamos de buscar
+        long seen = pageable.isPaged() ? pageable.getOffset() + slice.getNumberOfElements() : slice.getNumberOfElements();
+        total = Math.max(total, slice.hasNext() ? seen + 1 : seen);
 
-        Page<ProductDTO> pageDto = new PageImpl<>(dtos, page.getPageable(), page.getTotalElements());
-        return pageDto;
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    // Sugestões de nomes para a caixa de busca, respondidas da memoria sem consultar o banco
+    public List<String> suggest(String query, int limit) {
+        return nameSuggester.suggest(query, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    // Paginação por cursor: recebe o cursor devolvido na pagina anterior (ou vazio para a primeira pagina)
+    // e retorna os proximos produtos ordenados por nome, id
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> findAllByCursor(ProductFilterDTO filter, String cursor, int size) {
+
+        ProductCursor after = ProductCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+
+        // Buscamos um a mais só para saber se existe proxima pagina
+        List<ProductDTO> dtos = repository.searchProductsAfter(filter, fullTextSearch, after, pageSize + 1);
+        boolean hasNext = dtos.size() > pageSize;
+        if (hasNext) {
+            dtos = dtos.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductDTO last = dtos.get(dtos.size() - 1);
+            nextCursor = new ProductCursor(last.getName(), last.getId()).encode();
+        }
+
+        return new CursorPageDTO<>(dtos, pageSize, nextCursor);
+    }
+
+    // Total de produtos do filtro, guardado no ProductCountCache
+    private long countProducts(ProductFilterDTO filter) {
+        return countCache.get(filter, () -> repository.countProducts(filter, fullTextSearch));
+    }
+
+    // ETag do GET /products/{id}: id + versão do produto + ultima alteração das categorias dele
+    // (renomear uma categoria muda o ProductDTO mas nao incrementa a versão do produto)
+    // Uma consulta só pela chave primaria, sem carregar o produto nem a lista de categorias
+    @Transactional(readOnly = true)
+    public Optional<String> findEtag(Long id) {
+
+        return repository.findVersionById(id).map(row -> {
+            Instant changedAt = row.getCategoriesChangedAt();
+            return "\"" + id + "-" + row.getVersion() + "-" + (changedAt == null ? 0 : changedAt.toEpochMilli()) + "\"";
+        });
     }
 
     // Busca categoria por id
     @Transactional(readOnly = true)
     public ProductDTO findById(Long id) {
 
-        // O objeto Optional apareceu no java 8 pra evitar trabalhar com valor nulo
-        // e quem retorna este tipo Optional é o metodo do Jpa findById, que nunca retornará um objeto nulo, podendo ter ou não uma categoria dentro
-        Optional<Product> obj = repository.findById(id);
-        // Obter o objeto que está dentro do Optional
-        // Usando o orElseThrow, caso nao tenha um objeto Product ele permite informarmos uma excessao
-        // Criamos a nossa excessao EntityNotFoundException pra quando buscar um id que nao existe
-        Product entity = obj.orElseThrow(() -> new ResourceNotFoundException("Entidade não encontrada"));
-        // Retornamos o resultado como um ProductDTO
-        // obs. usando o entity.getCategories() nós trazemos tambem as categorias relacionadas ao Product
-        // que declaramos como relacionamento em Product.java e usamos o construtor ProductDTO(entity, entity.getCategories());
-        // que recebe um objeto Product e uma lista de categorias
-        return new ProductDTO(entity, entity.getCategories());
+        // Montamos o ProductDTO direto das linhas da consulta (produto x categoria), sem carregar a entidade Product
+        // Uma consulta só, e nada fica no contexto de persistencia para o Hibernate verificar no flush
+        List<ProductDTO> result = ProductDTO.fromRows(repository.searchProductRows(List.of(id)));
+        // Criamos a nossa excessao ResourceNotFoundException pra quando buscar um id que nao existe
+        if (result.isEmpty()) {
+            throw new ResourceNotFoundException("Entidade não encontrada");
+        }
+        return result.get(0);
     }
 
     // Metodo para inserir categoria no banco de dados
@@ -97,6 +235,9 @@ public class ProductService {
 
         // Agora vamos salvar o objeto no banco
         entity = repository.save(entity);
+        searchIndex.update(entity);
+        nameSuggester.update(entity);
+        evictQueries(null, new ProductDTO(entity, entity.getCategories()));
 
         // agora temos que retornar a entidade como forma de ProductDTO
         return new ProductDTO(entity);
@@ -113,11 +254,17 @@ public class ProductService {
             // a categoria e depois novamente para salvar a categoria atualizada
             Product entity = repository.getReferenceById(id);
 
+            // Como o produto estava antes da alteração, para invalidar as buscas em que ele aparecia
+            ProductDTO before = new ProductDTO(entity, entity.getCategories());
+
             // entity.setName(dto.getName());
             copyDtoToEntity(entity, dto);
 
             // Salvando a categoria atualizada no banco
             entity = repository.save(entity);
+            searchIndex.update(entity);
+            nameSuggester.update(entity);
+            evictQueries(before, new ProductDTO(entity, entity.getCategories()));
 
             // Retornamos a entidade convertida pra ProductDTO
             return new ProductDTO(entity);
@@ -137,9 +284,17 @@ public class ProductService {
             throw new ResourceNotFoundException("Recurso não encontrado");
         }
 
+        // Produto com categorias antes de remover, para invalidar as buscas em que ele aparecia
+        ProductDTO before = repository.searchProductsWithCategories(List.of(id)).stream()
+                .map(p -> new ProductDTO(p, p.getCategories()))
+                .findFirst().orElse(null);
+
         // Mas se passou pela verificação acima, iremos no try tentar deletar a categoria pelo id recebido por parametro
         try {
             repository.deleteById(id);
+            searchIndex.remove(id);
+            nameSuggester.remove(id);
+            evictQueries(before, null);
 
         } catch (DataIntegrityViolationException e) {
             // Caso tentemos deletar um id que nao existe o erro será capturado pelo DataIntegrityViolationException
@@ -150,6 +305,17 @@ public class ProductService {
         }
     }
 
+    // Invalida as paginas em cache afetadas pela alteração, depois do commit
+    // As respostas prontas do ResponseCache e os totais do ProductCountCache nao sabem quais produtos contem,
+    // entao sao todos descartados
+    private void evictQueries(ProductDTO before, ProductDTO after) {
+        Utils.afterCommit(() -> {
+            queryCache.evict(before, after);
+            countCache.clear();
+            responseCache.clear();
+        });
+    }
+
     // Este metodo auxiliar receberá como parametro um objeto Product
     // e um Product DTO, ele vai copiar os dados do ProductDTO para o Product
     // Esse metodo será private e outras classes nao poderão acessa-lo
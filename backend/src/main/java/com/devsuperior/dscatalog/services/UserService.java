@@ -6,8 +6,10 @@ import com.devsuperior.dscatalog.entities.User;
 import com.devsuperior.dscatalog.projections.UserDetailsProjection;
 import com.devsuperior.dscatalog.repositories.RoleRepository;
 import com.devsuperior.dscatalog.repositories.UserRepository;
+import com.devsuperior.dscatalog.services.cache.UserDetailsCache;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.util.Utils;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -41,6 +43,10 @@ public class UserService implements UserDetailsService {
     @Autowired
     private AuthService authService;
 
+    // Usuarios carregados no login (loadUserByUsername)
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     // Anotação que indica que as operações são somente leitura no banco. Isso ajuda o Spring a otimizar o desempenho e a evitar bloqueios desnecessários.
     // Usado em metodos que apenas leem dados findAll(), findById()...
     @Transactional(readOnly = true)
@@ -122,12 +128,19 @@ public class UserService implements UserDetailsService {
             // a categoria e depois novamente para salvar a categoria atualizada
             User entity = repository.getReferenceById(id);
 
+            // Email antes da alteração: o login pode ter ficado em cache com ele
+            String oldEmail = entity.getEmail();
+
             // entity.setName(dto.getName());
             copyDtoToEntity(entity, dto);
 
             // Salvando a categoria atualizada no banco
             entity = repository.save(entity);
 
+            // Email e roles podem ter mudado: remove do cache de login o email antigo e o novo
+            String newEmail = entity.getEmail();
+            Utils.afterCommit(() -> userDetailsCache.invalidate(oldEmail, newEmail));
+
             // Retornamos a entidade convertida pra UserDTO
             return new UserDTO(entity);
 
@@ -142,13 +155,13 @@ public class UserService implements UserDetailsService {
     public void delete(Long id) {
 
         // Se nao existir o id recebido por parametro...
-        if(!repository.existsById(id)) {
-            throw new ResourceNotFoundException("Recurso não encontrado");
-        }
+        // Buscamos o usuario (e nao só o existsById) pra saber qual email remover do cache de login
+        User entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Recurso não encontrado"));
 
         // Mas se passou pela verificação acima, iremos no try tentar deletar a categoria pelo id recebido por parametro
         try {
             repository.deleteById(id);
+            Utils.afterCommit(() -> userDetailsCache.invalidate(entity.getEmail()));
 
         } catch (DataIntegrityViolationException e) {
             // Caso tentemos deletar um id que nao existe o erro será capturado pelo DataIntegrityViolationException
@@ -193,7 +206,8 @@ public class UserService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        List<UserDetailsProjection> result = repository.searchUserAndRolesByEmail(username);
+        // As linhas (email, senha e roles) vem do cache, o User é montado de novo a cada chamada
+        List<UserDetailsProjection> result = userDetailsCache.get(username, () -> repository.searchUserAndRolesByEmail(username));
         if (result.size() == 0) {
             throw new UsernameNotFoundException("Email not found");
         }
@@ -0,0 +1,56 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+// Resposta guardada pelo ResponseCache: o corpo original e a versão gzip, comprimida uma vez só ao guardar
+// gzipBody fica null quando o corpo é pequeno demais para valer a pena comprimir
+public class CachedResponse {
+
+    private final String contentType;
+    private final String etag;
+    private final String cacheControl;
+    private final byte[] body;
+    private final byte[] gzipBody;
+
+    public CachedResponse(String contentType, String etag, String cacheControl, byte[] body, int minGzipSize) {
+        this.contentType = contentType;
+        this.etag = etag;
+        this.cacheControl = cacheControl;
+        this.body = body;
+        this.gzipBody = (body.length >= minGzipSize) ? gzip(body) : null;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    private static byte[] gzip(byte[] body) {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
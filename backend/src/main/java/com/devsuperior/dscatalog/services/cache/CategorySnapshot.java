@@ -0,0 +1,44 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+// Copia em memoria da lista de categorias, com a ETag calculada a partir do conteudo
+// A ETag é um hash do id e nome de cada categoria, entao todas as instancias da aplicação
+// geram a mesma ETag para a mesma lista (importante para o cache de navegadores e CDNs)
+public class CategorySnapshot {
+
+    private final List<CategoryDTO> categories;
+    private final String etag;
+
+    public CategorySnapshot(List<CategoryDTO> categories) {
+        this.categories = List.copyOf(categories);
+        this.etag = computeEtag(this.categories);
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    private static String computeEtag(List<CategoryDTO> categories) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (CategoryDTO cat : categories) {
+                digest.update((cat.getId() + "\u0000" + cat.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
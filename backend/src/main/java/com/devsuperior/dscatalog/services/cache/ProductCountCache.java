@@ -0,0 +1,37 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Total de produtos por filtro (nome, categorias e faixas de preço/data), usado pelas buscas do /products
+// quando o total nao pode ser deduzido da propria pagina. Evitamos rodar o COUNT(*) a cada pagina,
+// o valor pode ficar até o TTL desatualizado (alterações feitas por outra instancia)
+@Component
+public class ProductCountCache {
+
+    // Mesma chave normalizada do ProductQueryCache, sem a paginação
+    private final TtlCache<ProductQueryKey, Long> cache;
+
+    public ProductCountCache(
+            @Value("${product.count-cache.max-size:1000}") int maxSize,
+            @Value("${product.count-cache.ttl-seconds:60}") long ttlSeconds
+    ) {
+        this.cache = new TtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public long get(ProductFilterDTO filter, Supplier<Long> counter) {
+
+        return cache.get(new ProductQueryKey(filter, Pageable.unpaged()), counter);
+    }
+
+    // Qualquer inserção, alteração ou remoção de produto pode mudar os totais
+    // O ProductService chama depois do commit
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Cache das paginas de resultado do ProductService.findAllPaged
+// Poucas centenas de buscas representam a maior parte do trafego do /products, entao guardamos as paginas
+// mais usadas em memoria (tamanho maximo + TTL) e invalidamos só as buscas afetadas quando um produto muda
+// As metricas ficam em /actuator/metrics/product.query.cache.gets e product.query.cache.size
+@Component
+public class ProductQueryCache {
+
+    private final boolean enabled;
+    private final TtlCache<ProductQueryKey, Page<ProductDTO>> cache;
+
+    public ProductQueryCache(
+            @Value("${product.query-cache.enabled:true}") boolean enabled,
+            @Value("${product.query-cache.max-size:500}") int maxSize,
+            @Value("${product.query-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.cache = new TtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+
+        FunctionCounter.builder("product.query.cache.gets", cache, TtlCache::getHits)
+                .tag("result", "hit")
+                .description("Buscas de produtos respondidas pelo cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.query.cache.gets", cache, TtlCache::getMisses)
+                .tag("result", "miss")
+                .description("Buscas de produtos que precisaram ir ao banco")
+                .register(meterRegistry);
+        Gauge.builder("product.query.cache.size", cache, TtlCache::size)
+                .description("Quantidade de paginas de busca em cache")
+                .register(meterRegistry);
+    }
+
+    public Page<ProductDTO> get(ProductFilterDTO filter, Pageable pageable, Supplier<Page<ProductDTO>> loader) {
+
+        // Só usamos o cache em transações somente leitura: dentro de uma transação de escrita a busca
+        // pode enxergar alterações que ainda nao fizeram commit (e que podem sofrer rollback)
+        if (!enabled || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+
+        // A mesma pagina fica no cache para todas as requisições, entao cada uma recebe copias dos ProductDTO
+        return cache.get(new ProductQueryKey(filter, pageable), loader).map(ProductDTO::new);
+    }
+
+    // Produto inserido, alterado ou removido: invalida as buscas em que ele aparecia (before)
+    // ou passa a aparecer (after). Qualquer um dos dois pode ser null
+    public void evict(ProductDTO before, ProductDTO after) {
+        cache.invalidateIf(key -> key.matches(before) || key.matches(after));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
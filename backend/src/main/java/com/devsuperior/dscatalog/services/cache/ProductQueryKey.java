@@ -0,0 +1,79 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.services.search.ProductSearchIndex;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+// Chave do ProductQueryCache: filtro da busca normalizado + paginação
+// Duas buscas que só diferem na ordem das categorias ou em maiusculas/minusculas do nome usam a mesma entrada
+public class ProductQueryKey {
+
+    private final ProductFilterDTO filter;
+    private final String name;
+    private final List<Long> categoryIds;
+    private final Pageable pageable;
+
+    public ProductQueryKey(ProductFilterDTO filter, Pageable pageable) {
+        this.filter = filter;
+        this.name = filter.getName().toLowerCase(Locale.ROOT);
+        this.categoryIds = filter.getCategoryIds().stream().distinct().sorted().toList();
+        this.pageable = pageable;
+    }
+
+    // Diz se o produto pode aparecer no resultado desta busca (em qualquer pagina)
+    // Usado para invalidar só as entradas afetadas por uma alteração de produto
+    // Na duvida respondemos true: invalidar a mais só custa uma consulta, invalidar a menos devolve dado velho
+    public boolean matches(ProductDTO dto) {
+
+        if (dto == null || dto.getCategories().isEmpty()) {
+            return false;
+        }
+        if (!categoryIds.isEmpty()) {
+            boolean inCategories = false;
+            for (CategoryDTO cat : dto.getCategories()) {
+                inCategories |= categoryIds.contains(cat.getId());
+            }
+            if (!inCategories) {
+                return false;
+            }
+        }
+        if (!filter.matchesRanges(dto)) {
+            return false;
+        }
+
+        // Toda palavra buscada precisa aparecer em algum lugar do nome ou da descrição
+        // cobre o LIKE, a busca textual do PostgreSQL e o indice em memoria
+        String text = ProductSearchIndex.normalize(dto.getName() + " " + dto.getDescription());
+        for (String token : ProductSearchIndex.tokenize(name)) {
+            if (!text.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductQueryKey that = (ProductQueryKey) o;
+        return Objects.equals(name, that.name)
+                && Objects.equals(categoryIds, that.categoryIds)
+                && Objects.equals(filter.getMinPrice(), that.filter.getMinPrice())
+                && Objects.equals(filter.getMaxPrice(), that.filter.getMaxPrice())
+                && Objects.equals(filter.getFromDate(), that.filter.getFromDate())
+                && Objects.equals(filter.getToDate(), that.filter.getToDate())
+                && Objects.equals(pageable, that.pageable);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, categoryIds, filter.getMinPrice(), filter.getMaxPrice(),
+                filter.getFromDate(), filter.getToDate(), pageable);
+    }
+}
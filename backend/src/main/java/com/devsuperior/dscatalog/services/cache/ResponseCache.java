@@ -0,0 +1,70 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Cache das respostas prontas (corpo original + gzip) dos GET mais usados do /products e /categories
+// Preenchido e servido pelo ResponseCacheFilter. Qualquer alteração de produto ou categoria limpa tudo
+// depois do commit (ProductService, ProductBulkService e CategoryService)
+// As metricas ficam em /actuator/metrics/response.cache.gets e response.cache.size
+@Component
+public class ResponseCache {
+
+    private final boolean enabled;
+    private final int minGzipSize;
+    private final TtlCache<String, CachedResponse> cache;
+
+    public ResponseCache(
+            @Value("${response-cache.enabled:true}") boolean enabled,
+            @Value("${response-cache.max-size:200}") int maxSize,
+            @Value("${response-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${response-cache.min-gzip-size:256}") int minGzipSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.minGzipSize = minGzipSize;
+        this.cache = new TtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+
+        FunctionCounter.builder("response.cache.gets", cache, TtlCache::getHits)
+                .tag("result", "hit")
+                .description("Respostas servidas do cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("response.cache.gets", cache, TtlCache::getMisses)
+                .tag("result", "miss")
+                .description("Respostas que precisaram passar pelo controller")
+                .register(meterRegistry);
+        Gauge.builder("response.cache.size", cache, TtlCache::size)
+                .description("Quantidade de respostas em cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CachedResponse get(String key) {
+        return cache.get(key);
+    }
+
+    // Chamado antes de montar a resposta, o valor volta no put
+    // Uma resposta montada antes de uma limpeza nao é guardada depois dela
+    public long generation() {
+        return cache.generation();
+    }
+
+    public CachedResponse put(String key, String contentType, String etag, String cacheControl, byte[] body, long generation) {
+
+        CachedResponse response = new CachedResponse(contentType, etag, cacheControl, body, minGzipSize);
+        cache.put(key, response, generation);
+        return response;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
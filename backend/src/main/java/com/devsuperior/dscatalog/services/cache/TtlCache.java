@@ -0,0 +1,130 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Cache em memoria com tamanho maximo e tempo de vida (TTL) por entrada
+// Usa um LinkedHashMap em ordem de acesso, assim quando passa do tamanho maximo
+// removemos a entrada usada ha mais tempo (LRU)
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+
+    // Estatisticas de acerto/erro do cache
+    private long hits;
+    private long misses;
+
+    // Incrementada a cada invalidação. Um valor que começou a ser carregado antes dela
+    // pode ter lido dados antigos e nao é guardado
+    private long generation;
+
+    public TtlCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > TtlCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.isExpired()) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    // Chamado antes de carregar o valor, o mesmo numero volta no put(key, value, generation)
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Guarda o valor só se nada foi invalidado desde a generation lida antes da carga
+    public synchronized boolean put(K key, V value, long generation) {
+
+        if (this.generation != generation) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    // Busca no cache e, se nao tiver, carrega pelo loader e guarda
+    // O loader roda fora do lock para uma consulta lenta nao travar os outros acessos ao cache
+    // Valores null nao sao guardados
+    public V get(K key, Supplier<V> loader) {
+
+        V value = get(key);
+        if (value == null) {
+            long loadGeneration = generation();
+            value = loader.get();
+            if (value != null) {
+                put(key, value, loadGeneration);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    // Remove só as entradas cuja chave atende a condição
+    public synchronized void invalidateIf(Predicate<K> condition) {
+        generation++;
+        entries.keySet().removeIf(condition);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
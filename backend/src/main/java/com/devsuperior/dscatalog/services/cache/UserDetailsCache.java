@@ -0,0 +1,71 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.projections.UserDetailsProjection;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Cache das linhas do searchUserAndRolesByEmail (email, hash da senha e roles) usadas no UserService.loadUserByUsername
+// Cada /oauth2/token passa por aqui, e depois de um deploy todos os clientes fazem login ao mesmo tempo
+// Alterar, apagar o usuario ou trocar a senha invalida o email dele depois do commit (UserService e AuthService)
+// A invalidação é só desta instancia: nas outras a senha antiga continua valendo até o TTL vencer, por isso ele é curto
+// As metricas ficam em /actuator/metrics/user.details.cache.gets e user.details.cache.size
+@Component
+public class UserDetailsCache {
+
+    private final boolean enabled;
+    private final TtlCache<String, List<UserDetailsProjection>> cache;
+
+    public UserDetailsCache(
+            @Value("${user.details-cache.enabled:true}") boolean enabled,
+            @Value("${user.details-cache.max-size:10000}") int maxSize,
+            @Value("${user.details-cache.ttl-seconds:5}") long ttlSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.cache = new TtlCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+
+        FunctionCounter.builder("user.details.cache.gets", cache, TtlCache::getHits)
+                .tag("result", "hit")
+                .description("Logins que encontraram o usuario no cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.details.cache.gets", cache, TtlCache::getMisses)
+                .tag("result", "miss")
+                .description("Logins que precisaram buscar o usuario no banco")
+                .register(meterRegistry);
+        Gauge.builder("user.details.cache.size", cache, TtlCache::size)
+                .description("Quantidade de usuarios em cache")
+                .register(meterRegistry);
+    }
+
+    public List<UserDetailsProjection> get(String username, Supplier<List<UserDetailsProjection>> loader) {
+
+        if (!enabled) {
+            return loader.get();
+        }
+
+        // Email que nao existe nao vai para o cache: o usuario pode ser cadastrado logo em seguida
+        List<UserDetailsProjection> rows = cache.get(username, () -> {
+            List<UserDetailsProjection> loaded = List.copyOf(loader.get());
+            return loaded.isEmpty() ? null : loaded;
+        });
+        return (rows == null) ? List.of() : rows;
+    }
+
+    // Valores null sao ignorados
+    // O TtlCache descarta as consultas que estavam em andamento (ex. o hash da senha antiga voltando
+    // para o cache logo depois de uma troca de senha)
+    public void invalidate(String... usernames) {
+        for (String username : usernames) {
+            if (username != null) {
+                cache.invalidate(username);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+// Excessao para parametros de requisição invalidos (ex. um cursor de paginação adulterado)
+public class BadRequestException extends RuntimeException {
+
+    private static final Long serialVersionUID = 1L;
+
+    public BadRequestException(String msg) {
+        super(msg);
+    }
+
+}
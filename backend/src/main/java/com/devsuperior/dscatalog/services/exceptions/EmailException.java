@@ -1,9 +0,0 @@
-package com.devsuperior.dscatalog.services.exceptions;
-
-@SuppressWarnings("serial")
-public class EmailException extends RuntimeException {
-
-    public EmailException(String msg) {
-        super(msg);
-    }
-}
\ No newline at end of file
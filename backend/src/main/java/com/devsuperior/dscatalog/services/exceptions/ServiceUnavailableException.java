@@ -0,0 +1,12 @@
+package com.devsuperior.dscatalog.services.exceptions;
+
+// Excessao para um recurso que existe mas ainda nao pode responder (ex. o indice de busca ainda sendo montado)
+public class ServiceUnavailableException extends RuntimeException {
+
+    private static final Long serialVersionUID = 1L;
+
+    public ServiceUnavailableException(String msg) {
+        super(msg);
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.devsuperior.dscatalog.services.search;
+
+import java.util.Arrays;
+
+// Lista de ids de produtos (posting list) de um termo do indice invertido
+// Guardamos os ids em um long[] primitivo e sempre ordenado, assim evitamos um objeto Long por id
+// e conseguimos fazer a intersecção percorrendo as duas listas uma unica vez
+public class LongPostingList {
+
+    private long[] values;
+    private int size;
+
+    public LongPostingList() {
+        this(4);
+    }
+
+    public LongPostingList(int capacity) {
+        values = new long[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    // Insere mantendo a ordem, retorna false se o id ja estava na lista
+    public boolean add(long value) {
+
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    // Ids presentes nas duas listas
+    public static LongPostingList intersect(LongPostingList a, LongPostingList b) {
+
+        LongPostingList result = new LongPostingList(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            long x = a.values[i];
+            long y = b.values[j];
+            if (x == y) {
+                result.values[result.size++] = x;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+}
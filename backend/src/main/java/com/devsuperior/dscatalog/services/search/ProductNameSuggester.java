@@ -0,0 +1,106 @@
+package com.devsuperior.dscatalog.services.search;
+
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.projections.ProductProjection;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.util.Utils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Autocomplete de nomes de produtos (GET /products/suggest?q=)
+// Guardamos os nomes normalizados em um mapa ordenado (skip list), entao achar todos os nomes que começam
+// com um prefixo é só pegar o intervalo [prefixo, prefixo + ￿) do mapa, sem percorrer o catalogo
+// Para cada produto indexamos o nome a partir de cada palavra, assim "lord" tambem sugere "The Lord of the Rings"
+@Component
+public class ProductNameSuggester {
+
+    // Separa o texto indexado do id do produto na chave, e é menor que qualquer caractere do nome
+    private static final char SEPARATOR = '\u0000';
+
+    @Autowired
+    private ProductRepository repository;
+
+    // chave: trecho normalizado do nome + SEPARATOR + id  ->  nome original do produto
+    private final NavigableMap<String, String> entries = new ConcurrentSkipListMap<>();
+
+    // chaves de cada produto, para conseguir remover quando o produto mudar de nome ou for deletado
+    private final Map<Long, List<String>> keysById = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        for (ProductProjection projection : repository.searchAllNames()) {
+            put(projection.getId(), projection.getName());
+        }
+    }
+
+    // Chamado pelo ProductService dentro da transação, só atualizamos depois do commit
+    public void update(Product entity) {
+
+        Long id = entity.getId();
+        String name = entity.getName();
+        Utils.afterCommit(() -> put(id, name));
+    }
+
+    public void remove(Long id) {
+        Utils.afterCommit(() -> removeKeys(id));
+    }
+
+    public synchronized void put(Long id, String name) {
+
+        removeKeys(id);
+        if (name == null) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        String normalized = ProductSearchIndex.normalize(name);
+        for (int i = 0; i < normalized.length(); i++) {
+            boolean wordStart = Character.isLetterOrDigit(normalized.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)));
+            if (wordStart) {
+                String key = normalized.substring(i) + SEPARATOR + id;
+                entries.put(key, name);
+                keys.add(key);
+            }
+        }
+        keysById.put(id, keys);
+    }
+
+    // Ate limit nomes (sem repetir) que tenham alguma palavra começando com o texto digitado
+    public List<String> suggest(String query, int limit) {
+
+        String prefix = (query == null) ? "" : ProductSearchIndex.normalize(query).strip();
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        for (String name : entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            result.add(name);
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private synchronized void removeKeys(Long id) {
+
+        List<String> keys = keysById.remove(id);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+}
@@ -0,0 +1,752 @@
+package com.devsuperior.dscatalog.services.search;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.util.Utils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Indice invertido em memoria sobre os produtos
+// A busca normal segue o mesmo criterio do banco (só o nome): LIKE '%texto%' sem diferenciar maiusculas,
+// ou as palavras inteiras da busca textual quando product.search.full-text=true. Os candidatos saem dos
+// trigramas do nome e depois sao conferidos um a um
+// A busca fuzzy usa o dicionario de palavras (termos) do nome e da descrição
+// Com product.search.index.enabled=true o ProductService.findAllPaged responde o /products sem ir ao banco
+// Com só product.search.fuzzy.enabled=true o indice é montado apenas para a busca fuzzy e a listagem continua no banco
+// O indice é montado a partir do banco quando a aplicação sobe e depois é mantido pelo
+// ProductService.insert, update e delete
+@Component
+public class ProductSearchIndex {
+
+    @Autowired
+    private ProductRepository repository;
+
+    // Responde a listagem normal do /products
+    @Value("${product.search.index.enabled:false}")
+    private boolean enabled;
+
+    // Responde só a busca fuzzy (/products?fuzzy=true)
+    @Value("${product.search.fuzzy.enabled:true}")
+    private boolean fuzzyEnabled;
+
+    // Mesmo criterio de nome usado pelo ProductRepositoryImpl
+    @Value("${product.search.full-text:false}")
+    private boolean fullTextSearch;
+
+    // Produtos indexados (id -> ProductDTO ja com as categorias)
+    // Um ProductDTO guardado aqui nunca é alterado: o renameCategory troca por uma copia e as buscas devolvem copias
+    private final Map<Long, ProductDTO> documents = new ConcurrentHashMap<>();
+
+    // Trigramas do nome em minusculas (ex. "mac", "acb", ...) -> ids dos produtos
+    // Todo texto com 3 ou mais caracteres contido no nome tem os seus trigramas nessa lista
+    private final Map<String, LongPostingList> idsByNameTrigram = new HashMap<>();
+
+    // Dicionario de termos ordenado, assim conseguimos buscar todos os termos que começam com um prefixo
+    private final NavigableMap<String, LongPostingList> terms = new TreeMap<>();
+
+    // Trigramas de cada termo do dicionario (ex. "$ma", "mac", ...), usados pela busca fuzzy
+    // para achar os termos parecidos com a palavra digitada sem comparar com o dicionario inteiro
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+
+    // Campos de ordenação suportados aqui (propriedade do Pageable -> valor), os mesmos do ProductRepositoryImpl
+    // O nome é comparado pela ordem binaria do String, a mesma do H2 e do PostgreSQL com collation "C"
+    // Obs. no PostgreSQL com collation de idioma (ex. pt_BR.UTF-8) o ORDER BY name trata maiusculas, acentos e
+    // espaços de outro jeito, entao com sort=name a ordem dos nomes parecidos pode mudar conforme o indice
+    // esteja ligado ou nao
+    private static final Map<String, Comparator<ProductDTO>> SORT_KEYS = Map.of(
+            "id", Comparator.comparing(ProductDTO::getId),
+            "name", Comparator.comparing(ProductDTO::getName, Comparator.nullsLast(Comparator.<String>naturalOrder())),
+            "price", Comparator.comparing(ProductDTO::getPrice, Comparator.nullsLast(Comparator.<Double>naturalOrder())),
+            "date", Comparator.comparing(ProductDTO::getDate, Comparator.nullsLast(Comparator.<Instant>naturalOrder()))
+    );
+
+    private static final Comparator<ProductDTO> BY_ID = SORT_KEYS.get("id");
+
+    // Os produtos ja ordenados por cada campo de SORT_KEYS (desempate pelo id), mantidos junto com os documentos
+    // A listagem sem texto buscado percorre essa ordem e para de copiar quando a pagina está completa,
+    // em vez de ordenar todos os produtos a cada requisição
+    private final Map<String, NavigableSet<ProductDTO>> sortedBy = sortedOrders();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    // O indice é montado e mantido (para a listagem, para a busca fuzzy ou para as duas)
+    public boolean isEnabled() {
+        return enabled || fuzzyEnabled;
+    }
+
+    // Indice montado, pronto para a busca fuzzy
+    public boolean isLoaded() {
+        return isEnabled() && ready;
+    }
+
+    // Indice montado e ligado para a listagem normal
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Monta o indice a partir do banco quando a aplicação termina de subir
+    // Seguramos o lock de escrita durante a carga, assim as alterações que chegarem nesse meio tempo
+    // ficam esperando e são aplicadas por cima do que foi carregado
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            terms.clear();
+            termsByTrigram.clear();
+            idsByNameTrigram.clear();
+            sortedBy.values().forEach(Set::clear);
+            for (Product entity : repository.searchAllWithCategories()) {
+                addDocument(new ProductDTO(entity, entity.getCategories()));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chamado pelo ProductService com a entidade salva, ainda dentro da transação
+    // Convertemos para DTO agora (as categorias ainda podem ser carregadas) e só atualizamos
+    // o indice depois do commit, para nao indexar algo que sofreu rollback
+    public void update(Product entity) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        ProductDTO dto = new ProductDTO(entity, entity.getCategories());
+        Utils.afterCommit(() -> put(dto));
+    }
+
+    public void remove(Long id) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        Utils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Categoria renomeada: troca os produtos indexados daquela categoria por copias com o nome novo
+    // (uma busca em andamento pode estar copiando o ProductDTO antigo, entao ele nao é alterado)
+    public void renameCategory(Long categoryId, String name) {
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        Utils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Long, ProductDTO> entry : documents.entrySet()) {
+                    if (entry.getValue().getCategories().stream().anyMatch(cat -> categoryId.equals(cat.getId()))) {
+                        ProductDTO renamed = new ProductDTO(entry.getValue());
+                        for (CategoryDTO cat : renamed.getCategories()) {
+                            if (categoryId.equals(cat.getId())) {
+                                cat.setName(name);
+                            }
+                        }
+                        // Nome, preço e data nao mudam, a posição nas ordens continua a mesma
+                        for (NavigableSet<ProductDTO> sorted : sortedBy.values()) {
+                            sorted.remove(entry.getValue());
+                            sorted.add(renamed);
+                        }
+                        entry.setValue(renamed);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void put(ProductDTO dto) {
+
+        // Guardamos uma copia, o chamador continua livre para alterar o dto
+        ProductDTO document = new ProductDTO(dto);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(document.getId());
+            addDocument(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Page<ProductDTO> search(ProductFilterDTO filter, Pageable pageable) {
+        return search(filter.getName(), filter.getCategoryIds(), filter.hasRanges() ? filter : null, pageable);
+    }
+
+    // Busca paginada no indice, com os mesmos produtos e o mesmo total da consulta do banco (ProductRepositoryImpl)
+    // LIKE: o texto buscado precisa aparecer em qualquer parte do nome, sem diferenciar maiusculas (ex. "book" acha "Macbook")
+    // Busca textual: cada palavra buscada precisa ser uma palavra inteira do nome
+    // A ordem tambem é a do banco, menos a ordem dos nomes no PostgreSQL com collation de idioma (ver SORT_KEYS)
+    // Retorna null quando a ordenação pedida nao é suportada aqui, e ai o ProductService vai ao banco
+    private Page<ProductDTO> search(String name, List<Long> categoryIds, ProductFilterDTO ranges, Pageable pageable) {
+
+        Comparator<ProductDTO> comparator = comparator(pageable.getSort());
+        if (comparator == null) {
+            return null;
+        }
+
+        String text = (name == null) ? "" : name.toLowerCase(Locale.ROOT);
+        List<String> words = fullTextSearch ? nameWords(text) : List.of(text);
+        Predicate<ProductDTO> filter = filter(text, words, categoryIds, ranges);
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long end = pageable.isPaged() ? offset + pageable.getPageSize() : Long.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            LongPostingList ids = nameCandidates(words);
+            Sort.Order order = singleOrder(pageable.getSort());
+
+            if (ids == null && order != null) {
+                // Sem trigramas para reduzir os candidatos (ex. listagem sem texto): percorremos a ordem pronta
+                // do campo, copiando só os produtos da pagina e contando o resto para o total
+                List<ProductDTO> content = new ArrayList<>();
+                long[] total = {0};
+                walk(order, dto -> {
+                    if (filter.test(dto)) {
+                        if (total[0] >= offset && total[0] < end) {
+                            content.add(new ProductDTO(dto));
+                        }
+                        total[0]++;
+                    }
+                });
+                return new PageImpl<>(content, pageable, total[0]);
+            }
+
+            // Candidatos dos trigramas do nome (ou ordenação por mais de um campo): ordenamos só os
+            // primeiros offset + size que passam no filtro
+            List<ProductDTO> matches = new ArrayList<>();
+            forEachCandidate(ids, dto -> {
+                if (filter.test(dto)) {
+                    matches.add(dto);
+                }
+            });
+            return toPage(top(matches, comparator, end), matches.size(), pageable);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Facets da busca normal: quantos produtos do filtro existem em cada categoria, ordenados pelo nome da categoria
+    // Igual ao ProductRepositoryImpl.searchCategoryFacets, o filtro de categoria nao é aplicado aqui
+    public List<CategoryFacetDTO> facets(ProductFilterDTO filter) {
+
+        String text = (filter.getName() == null) ? "" : filter.getName().toLowerCase(Locale.ROOT);
+        List<String> words = fullTextSearch ? nameWords(text) : List.of(text);
+        Predicate<ProductDTO> matcher = filter(text, words, List.of(), filter.hasRanges() ? filter : null);
+
+        Map<Long, CategoryFacetDTO> facets = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            forEachCandidate(nameCandidates(words), dto -> {
+                if (matcher.test(dto)) {
+                    for (CategoryDTO cat : dto.getCategories()) {
+                        CategoryFacetDTO facet = facets.get(cat.getId());
+                        facets.put(cat.getId(), new CategoryFacetDTO(cat.getId(), cat.getName(),
+                                (facet == null) ? 1L : facet.getCount() + 1));
+                    }
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<CategoryFacetDTO> result = new ArrayList<>(facets.values());
+        result.sort(Comparator.comparing(CategoryFacetDTO::getName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                .thenComparing(CategoryFacetDTO::getCategoryId));
+        return result;
+    }
+
+    // Nome, categorias e faixas da busca normal
+    private Predicate<ProductDTO> filter(String text, List<String> words, List<Long> categoryIds, ProductFilterDTO ranges) {
+
+        Set<Long> categories = new HashSet<>(categoryIds);
+        return dto -> matchesName(dto, text, words) && inCategories(dto, categories)
+                && (ranges == null || ranges.matchesRanges(dto));
+    }
+
+    // Produtos candidatos dos trigramas, ou todos quando ids é null. Chamar com o lock de leitura
+    private void forEachCandidate(LongPostingList ids, Consumer<ProductDTO> action) {
+
+        if (ids == null) {
+            documents.values().forEach(action);
+            return;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            ProductDTO dto = documents.get(ids.get(i));
+            if (dto != null) {
+                action.accept(dto);
+            }
+        }
+    }
+
+    // Percorre os produtos na ordem do campo pedido. Chamar com o lock de leitura
+    // Na ordem decrescente os empates continuam pelo id crescente, como o "ORDER BY x DESC, id ASC" do banco
+    private void walk(Sort.Order order, Consumer<ProductDTO> action) {
+
+        NavigableSet<ProductDTO> sorted = sortedBy.get(order.getProperty());
+        if (order.isAscending()) {
+            sorted.forEach(action);
+            return;
+        }
+
+        Comparator<ProductDTO> key = SORT_KEYS.get(order.getProperty());
+        List<ProductDTO> ties = new ArrayList<>();
+        for (ProductDTO dto : sorted.descendingSet()) {
+            if (!ties.isEmpty() && key.compare(ties.get(0), dto) != 0) {
+                flushTies(ties, action);
+            }
+            ties.add(dto);
+        }
+        flushTies(ties, action);
+    }
+
+    private static void flushTies(List<ProductDTO> ties, Consumer<ProductDTO> action) {
+        for (int i = ties.size() - 1; i >= 0; i--) {
+            action.accept(ties.get(i));
+        }
+        ties.clear();
+    }
+
+    // Busca tolerante a erros de digitação (ex. "Macbok" encontra "Macbook")
+    // Para cada palavra buscada geramos os termos candidatos pelos trigramas em comum e só neles calculamos
+    // a distancia de edição (Levenshtein) limitada. Cada palavra precisa casar com algum termo do produto
+    // e o resultado vem ordenado pela soma das distancias (mais parecido primeiro)
+    // Mesmos filtros de faixa de preço e data da busca normal
+    public Page<ProductDTO> searchFuzzy(ProductFilterDTO filter, Pageable pageable) {
+        return searchFuzzy(filter.getName(), filter.getCategoryIds(), filter.hasRanges() ? filter : null, pageable);
+    }
+
+    private Page<ProductDTO> searchFuzzy(String name, List<Long> categoryIds, ProductFilterDTO ranges, Pageable pageable) {
+
+        List<String> tokens = tokenize(name);
+        Comparator<ProductDTO> tieBreaker = comparator(pageable.getSort());
+        if (tieBreaker == null) {
+            tieBreaker = comparator(Sort.unsorted());
+        }
+
+        // Sem palavras para comparar é uma listagem normal, ignorando ordenações que o indice nao suporta
+        if (tokens.isEmpty()) {
+            Page<ProductDTO> result = search(name, categoryIds, ranges, pageable);
+            if (result == null) {
+                result = search(name, categoryIds, ranges, pageable.isPaged()
+                        ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+                        : Pageable.unpaged());
+            }
+            return result;
+        }
+
+        Map<Long, Integer> scores = null;
+        List<ProductDTO> matches = new ArrayList<>();
+        Set<Long> categories = new HashSet<>(categoryIds);
+
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<Long, Integer> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Integer> candidate : fuzzyTerms(token).entrySet()) {
+                    LongPostingList postings = terms.get(candidate.getKey());
+                    for (int i = 0; i < postings.size(); i++) {
+                        tokenScores.merge(postings.get(i), candidate.getValue(), Math::min);
+                    }
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Long, Integer> intersection = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        Integer distance = tokenScores.get(entry.getKey());
+                        if (distance != null) {
+                            intersection.put(entry.getKey(), entry.getValue() + distance);
+                        }
+                    }
+                    scores = intersection;
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+
+            for (Long id : scores.keySet()) {
+                ProductDTO dto = documents.get(id);
+                if (inCategories(dto, categories)) {
+                    matches.add(dto);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (ranges != null) {
+            matches.removeIf(dto -> !ranges.matchesRanges(dto));
+        }
+
+        Map<Long, Integer> finalScores = scores;
+        Comparator<ProductDTO> byScore = Comparator.<ProductDTO>comparingInt(dto -> finalScores.get(dto.getId()))
+                .thenComparing(tieBreaker);
+        long end = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : Long.MAX_VALUE;
+
+        return toPage(top(matches, byScore, end), matches.size(), pageable);
+    }
+
+    // Candidatos da busca normal: produtos cujo nome tem todos os trigramas das partes buscadas
+    // Retorna null quando nenhuma parte tem 3 caracteres ou mais
+    private LongPostingList nameCandidates(List<String> parts) {
+
+        LongPostingList result = null;
+        for (String part : parts) {
+            for (String gram : nameTrigrams(part)) {
+                LongPostingList postings = idsByNameTrigram.getOrDefault(gram, new LongPostingList());
+                result = (result == null) ? postings : LongPostingList.intersect(result, postings);
+                if (result.isEmpty()) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean matchesName(ProductDTO dto, String text, List<String> words) {
+
+        String productName = (dto.getName() == null) ? "" : dto.getName().toLowerCase(Locale.ROOT);
+        if (!fullTextSearch) {
+            return productName.contains(text);
+        }
+        return new HashSet<>(nameWords(productName)).containsAll(words);
+    }
+
+    // Palavras como a configuração 'simple' do PostgreSQL separa: minusculas, mantendo os acentos
+    private static List<String> nameWords(String text) {
+
+        List<String> result = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    // Trigramas sem marcação de inicio/fim, assim qualquer trecho do nome tem os seus trigramas no nome
+    private static Set<String> nameTrigrams(String text) {
+
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Mesma normalização usada na indexação: minusculas, sem acentos e separando por qualquer caractere
+    // que nao seja letra ou numero
+    public static List<String> tokenize(String text) {
+
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    // Minusculas e sem acentos, ex. "Eletrônicos" -> "eletronicos"
+    public static String normalize(String text) {
+        return Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    // Os metodos abaixo devem ser chamados com o lock ja adquirido
+
+    private void addDocument(ProductDTO dto) {
+
+        documents.put(dto.getId(), dto);
+        for (NavigableSet<ProductDTO> sorted : sortedBy.values()) {
+            sorted.add(dto);
+        }
+        for (String term : documentTerms(dto)) {
+            LongPostingList postings = terms.get(term);
+            if (postings == null) {
+                postings = new LongPostingList();
+                terms.put(term, postings);
+                for (String gram : trigrams(term)) {
+                    termsByTrigram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+                }
+            }
+            postings.add(dto.getId());
+        }
+        for (String gram : documentNameTrigrams(dto)) {
+            idsByNameTrigram.computeIfAbsent(gram, g -> new LongPostingList()).add(dto.getId());
+        }
+    }
+
+    private void removeDocument(Long id) {
+
+        ProductDTO old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (NavigableSet<ProductDTO> sorted : sortedBy.values()) {
+            sorted.remove(old);
+        }
+        for (String gram : documentNameTrigrams(old)) {
+            LongPostingList postings = idsByNameTrigram.get(gram);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    idsByNameTrigram.remove(gram);
+                }
+            }
+        }
+        for (String term : documentTerms(old)) {
+            LongPostingList postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    terms.remove(term);
+                    for (String gram : trigrams(term)) {
+                        Set<String> gramTerms = termsByTrigram.get(gram);
+                        if (gramTerms != null) {
+                            gramTerms.remove(term);
+                            if (gramTerms.isEmpty()) {
+                                termsByTrigram.remove(gram);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Termos parecidos com a palavra buscada -> distancia de edição
+    // Termos que começam com a palavra tem distancia 0
+    private Map<String, Integer> fuzzyTerms(String token) {
+
+        Map<String, Integer> result = new HashMap<>();
+        for (String term : terms.subMap(token, true, token + Character.MAX_VALUE, false).keySet()) {
+            result.put(term, 0);
+        }
+
+        int maxEdits = maxEdits(token);
+        if (maxEdits == 0) {
+            return result;
+        }
+
+        // Cada edição altera no maximo 3 trigramas, entao um termo a maxEdits de distancia
+        // precisa ter pelo menos (trigramas da palavra - 3 * maxEdits) trigramas em comum
+        List<String> grams = trigrams(token);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> gramTerms = termsByTrigram.get(gram);
+            if (gramTerms != null) {
+                for (String term : gramTerms) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        int minShared = Math.max(1, grams.size() - 3 * maxEdits);
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String term = entry.getKey();
+            if (entry.getValue() >= minShared && !result.containsKey(term)) {
+                int distance = levenshtein(token, term, maxEdits);
+                if (distance <= maxEdits) {
+                    result.put(term, distance);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Palavras curtas precisam casar exatamente, as maiores aceitam 1 ou 2 erros
+    private static int maxEdits(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return (token.length() <= 7) ? 1 : 2;
+    }
+
+    private static List<String> trigrams(String term) {
+
+        String padded = "$" + term + "$";
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Distancia de edição entre a e b, parando assim que passar de max (retorna max + 1 nesse caso)
+    static int levenshtein(String a, String b, int max) {
+
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    // Os primeiros limit produtos na ordem do comparator, sem ordenar a lista inteira
+    // (heap com no maximo limit produtos, o maior deles no topo)
+    private static List<ProductDTO> top(List<ProductDTO> matches, Comparator<ProductDTO> comparator, long limit) {
+
+        if (limit >= matches.size()) {
+            List<ProductDTO> result = new ArrayList<>(matches);
+            result.sort(comparator);
+            return result;
+        }
+
+        PriorityQueue<ProductDTO> heap = new PriorityQueue<>((int) limit + 1, comparator.reversed());
+        for (ProductDTO dto : matches) {
+            heap.add(dto);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<ProductDTO> result = new ArrayList<>(heap);
+        result.sort(comparator);
+        return result;
+    }
+
+    // top: os produtos ja ordenados até o fim da pagina pedida
+    private static Page<ProductDTO> toPage(List<ProductDTO> top, long total, Pageable pageable) {
+
+        // Devolvemos copias, quem recebe a pagina pode alterar os ProductDTO sem mexer no indice
+        List<ProductDTO> content = new ArrayList<>();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        for (long i = offset; i < top.size(); i++) {
+            content.add(new ProductDTO(top.get((int) i)));
+        }
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static Set<String> documentNameTrigrams(ProductDTO dto) {
+        return nameTrigrams((dto.getName() == null) ? "" : dto.getName().toLowerCase(Locale.ROOT));
+    }
+
+    private static Set<String> documentTerms(ProductDTO dto) {
+
+        Set<String> result = new HashSet<>(tokenize(dto.getName()));
+        result.addAll(tokenize(dto.getDescription()));
+        return result;
+    }
+
+    // Igual ao EXISTS na tb_product_category do banco, produtos sem categoria nao aparecem
+    private static boolean inCategories(ProductDTO dto, Set<Long> categoryIds) {
+
+        if (dto == null || dto.getCategories().isEmpty()) {
+            return false;
+        }
+        if (categoryIds.isEmpty()) {
+            return true;
+        }
+        for (CategoryDTO cat : dto.getCategories()) {
+            if (categoryIds.contains(cat.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, NavigableSet<ProductDTO>> sortedOrders() {
+
+        Map<String, NavigableSet<ProductDTO>> result = new HashMap<>();
+        for (Map.Entry<String, Comparator<ProductDTO>> entry : SORT_KEYS.entrySet()) {
+            result.put(entry.getKey(), new TreeSet<>(entry.getValue().thenComparing(BY_ID)));
+        }
+        return result;
+    }
+
+    // Ordenação por um unico campo (ou nenhum, que é pelo id), que pode usar as ordens prontas do sortedBy
+    private static Sort.Order singleOrder(Sort sort) {
+
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty()) {
+            return Sort.Order.asc("id");
+        }
+        return (orders.size() == 1) ? orders.get(0) : null;
+    }
+
+    // Ordenações que conseguimos fazer em memoria, sempre desempatando pelo id
+    private static Comparator<ProductDTO> comparator(Sort sort) {
+
+        Comparator<ProductDTO> result = null;
+        for (Sort.Order order : sort) {
+            Comparator<ProductDTO> next = SORT_KEYS.get(order.getProperty());
+            if (next == null) {
+                return null;
+            }
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            result = (result == null) ? next : result.thenComparing(next);
+        }
+
+        return (result == null) ? BY_ID : result.thenComparing(BY_ID);
+    }
+}
@@ -0,0 +1,51 @@
+package com.devsuperior.dscatalog.util;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Posição da paginação por cursor: ultimo (nome, id) devolvido na pagina anterior
+// Para o cliente o cursor é opaco, um texto em Base64 que ele só repassa na proxima requisição
+public class ProductCursor {
+
+    // Cursor da primeira pagina: todo nome é >= "" e todo id é > 0
+    public static final ProductCursor FIRST = new ProductCursor("", 0L);
+
+    private final String name;
+    private final Long id;
+
+    public ProductCursor(String name, Long id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    // Formato antes do Base64: <id>:<nome>
+    public String encode() {
+        String raw = id + ":" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor) {
+
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new ProductCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+-- Alterações de schema/indices para o banco PostgreSQL (perfil dev)
+-- No perfil dev usamos spring.jpa.hibernate.ddl-auto=none, entao estes comandos devem ser executados manualmente
+-- No perfil test (H2) o schema é gerado pelo Hibernate e nada disso é necessário
+
+-- Busca textual por nome do produto (ProductRepositoryImpl.filterSql com product.search.full-text=true)
+-- A expressao do indice precisa ser a mesma usada na consulta: to_tsvector('simple', name)
+CREATE INDEX IF NOT EXISTS idx_product_name_tsv ON tb_product USING GIN (to_tsvector('simple', name));
+CREATE INDEX IF NOT EXISTS idx_product_category_category ON tb_product_category (category_id, product_id);
+
+-- Paginação por cursor (ProductRepositoryImpl.searchProductsAfter)
+CREATE INDEX IF NOT EXISTS idx_product_name_id ON tb_product (name, id);
+
+-- Filtros de faixa e ordenação por preço e data (ProductRepositoryImpl.searchProductsPage)
+CREATE INDEX IF NOT EXISTS idx_product_price_id ON tb_product (price, id);
+CREATE INDEX IF NOT EXISTS idx_product_date_id ON tb_product (date, id);
+
+-- Versão do produto usada na ETag do GET /products/{id} (Product.version)
+ALTER TABLE tb_product ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- Sequences dos ids de Product, Category e User (@SequenceGenerator com allocationSize = 50, otimizador pooled-lo)
+-- O setval deixa a proxima chamada do nextval devolver o primeiro id livre
+CREATE SEQUENCE IF NOT EXISTS seq_product START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_category START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS seq_user START WITH 1 INCREMENT BY 50;
+SELECT setval('seq_product', (SELECT COALESCE(MAX(id), 0) + 1 FROM tb_product), false);
+SELECT setval('seq_category', (SELECT COALESCE(MAX(id), 0) + 1 FROM tb_category), false);
+SELECT setval('seq_user', (SELECT COALESCE(MAX(id), 0) + 1 FROM tb_user), false);
+
+-- Fila de envio de emails (EmailOutbox, EmailOutboxDispatcher)
+CREATE TABLE IF NOT EXISTS tb_email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    attempts INTEGER NOT NULL,
+    failed BOOLEAN NOT NULL,
+    last_error VARCHAR(500)
+);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON tb_email_outbox (next_attempt_at) WHERE failed = FALSE;
+
+-- Tokens de recuperação de senha (PasswordRecover): guardamos só o SHA-256 do token, com uma linha por email
+-- Os tokens atuais estao em texto puro e duram poucos minutos, entao sao descartados (basta pedir a recuperação de novo)
+-- Os blocos conferem o schema antes de alterar, entao o script pode ser executado de novo sem apagar os tokens ja em hash
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'tb_password_recover' AND column_name = 'token') THEN
+        DELETE FROM tb_password_recover;
+        ALTER TABLE tb_password_recover RENAME COLUMN token TO token_hash;
+        ALTER TABLE tb_password_recover ALTER COLUMN token_hash TYPE VARCHAR(64);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_password_recover_token_hash') THEN
+        ALTER TABLE tb_password_recover ADD CONSTRAINT uk_password_recover_token_hash UNIQUE (token_hash);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_password_recover_email') THEN
+        ALTER TABLE tb_password_recover ADD CONSTRAINT uk_password_recover_email UNIQUE (email);
+    END IF;
+END $$;
+-- Limpeza dos tokens vencidos (PasswordRecoverRepository.searchExpiredIds)
+CREATE INDEX IF NOT EXISTS idx_password_recover_expiration ON tb_password_recover (expiration, id);
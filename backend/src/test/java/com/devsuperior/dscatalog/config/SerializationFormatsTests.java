@@ -0,0 +1,108 @@
+package com.devsuperior.dscatalog.config;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Compara o tamanho de uma pagina de 500 produtos em JSON, CBOR e Smile
+// Garante que os formatos binarios sao menores que o JSON e que a ida e volta preserva o conteudo
+// O tempo de escrita e leitura de cada formato é medido só com -Dloadtest=true (mesmo criterio dos testes de carga):
+// mvn test -Dloadtest=true -Dtest=SerializationFormatsTests
+public class SerializationFormatsTests {
+
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    public void binaryFormatsShouldBeSmallerThanJson() throws Exception {
+
+        Map<String, Object> page = createPage(500);
+
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+
+        int jsonSize = serialize(json, page);
+        int cborSize = serialize(cbor, page);
+        int smileSize = serialize(smile, page);
+
+        Assertions.assertTrue(cborSize < jsonSize);
+        Assertions.assertTrue(smileSize < jsonSize);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    public void serializationTimes() throws Exception {
+
+        Map<String, Object> page = createPage(500);
+
+        measure("json", Jackson2ObjectMapperBuilder.json().build(), page);
+        measure("cbor", Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build(), page);
+        measure("smile", Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build(), page);
+    }
+
+    // Tempo medio de escrita e leitura da pagina, impresso no console
+    private static void measure(String format, ObjectMapper mapper, Map<String, Object> page) throws Exception {
+
+        byte[] bytes = mapper.writeValueAsBytes(page);
+
+        // aquecimento da JVM antes de medir
+        for (int i = 0; i < WARMUP; i++) {
+            mapper.readTree(mapper.writeValueAsBytes(page));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(page);
+        }
+        double writeMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readTree(bytes);
+        }
+        double readMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+        System.out.printf("%-5s %8d bytes  escrita %8.1f us  leitura %8.1f us%n", format, bytes.length, writeMicros, readMicros);
+    }
+
+    // Serializa, confere a ida e volta e retorna o tamanho em bytes
+    private static int serialize(ObjectMapper mapper, Map<String, Object> page) throws Exception {
+
+        byte[] bytes = mapper.writeValueAsBytes(page);
+
+        JsonNode tree = mapper.readTree(bytes);
+        Assertions.assertEquals(500, tree.get("content").size());
+        Assertions.assertEquals("PC Gamer 1", tree.at("/content/0/name").asText());
+        Assertions.assertEquals(1001.0, tree.at("/content/0/price").asDouble());
+        Assertions.assertEquals("2020-07-14T10:00:00Z", tree.at("/content/0/date").asText());
+        Assertions.assertEquals("Computadores", tree.at("/content/499/categories/0/name").asText());
+        Assertions.assertEquals(500, tree.at("/page/totalElements").asInt());
+        return bytes.length;
+    }
+
+    private static Map<String, Object> createPage(int size) {
+
+        List<ProductDTO> content = new ArrayList<>();
+        for (long i = 1; i <= size; i++) {
+            ProductDTO dto = new ProductDTO(i, "PC Gamer " + i, "Lorem ipsum dolor sit amet, consectetur adipiscing elit " + i,
+                    1000.0 + i, "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/" + i + "-big.jpg",
+                    Instant.parse("2020-07-14T10:00:00Z"));
+            dto.getCategories().add(new CategoryDTO(3L, "Computadores"));
+            content.add(dto);
+        }
+        return Map.of("content", content, "page", Map.of("size", size, "number", 0, "totalElements", size, "totalPages", 1));
+    }
+}
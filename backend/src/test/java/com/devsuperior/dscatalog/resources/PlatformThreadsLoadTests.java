@@ -0,0 +1,45 @@
+package com.devsuperior.dscatalog.resources;
+
+import com.devsuperior.dscatalog.tests.LoadTestSupport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+
+// Teste de carga com o pool de threads de plataforma do Tomcat (server.tomcat.threads.max=200)
+// Comparar a saida com VirtualThreadsLoadTests rodando os dois juntos:
+// mvn test -Dloadtest=true -Dtest='*ThreadsLoadTests'
+// So roda com -Dloadtest=true pra nao atrasar o build normal
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=200",
+        "spring.datasource.hikari.maximum-pool-size=10"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class PlatformThreadsLoadTests {
+
+    private static final int CONCURRENCY = 1000;
+    private static final int REQUESTS = 20000;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void findByIdShouldAnswerAllRequestsUnderHighConcurrency() throws Exception {
+
+        // aquecimento (JIT, pool de conexões) antes da medição
+        LoadTestSupport.run("Platform threads (aquecimento)", 100, 2000, this::productUri);
+
+        LoadTestSupport.Result result = LoadTestSupport.run("Platform threads", CONCURRENCY, REQUESTS, this::productUri);
+
+        Assertions.assertEquals(0, result.errors());
+    }
+
+    // GET /products/{id} sempre consulta o banco (versão + linhas do produto), ids 1 a 25 do import.sql
+    private URI productUri(int i) {
+        return URI.create("http://localhost:" + port + "/products/" + (i % 25 + 1));
+    }
+}
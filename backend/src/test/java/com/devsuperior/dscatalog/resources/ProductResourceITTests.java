@@ -1,9 +1,16 @@
 package com.devsuperior.dscatalog.resources;
 
+import com.devsuperior.dscatalog.dto.CategoryDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.cache.ProductCountCache;
+import com.devsuperior.dscatalog.services.cache.ProductQueryCache;
 import com.devsuperior.dscatalog.tests.Factory;
 import com.devsuperior.dscatalog.tests.TokenUtil;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +18,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // Teste de integração desde a camada web. Neste tipo de teste nós chamamos as outras camadas
@@ -45,6 +63,14 @@ public class ProductResourceITTests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    // Os testes rodam com rollback, entao a limpeza dos caches depois do commit nunca acontece
+    // Limpamos antes de cada teste para o total contado em um teste (ex. depois do bulk insert) nao vazar para o outro
+    @Autowired
+    private ProductCountCache countCache;
+
+    @Autowired
+    private ProductQueryCache queryCache;
+
     private long existingId;
     private long nonExistingId;
     private long countTotalProducts;
@@ -63,6 +89,9 @@ public class ProductResourceITTests {
         nonExistingId = 1000L;
         countTotalProducts = 25;
 
+        countCache.clear();
+        queryCache.clear();
+
         // Iniciar variaves para token de teste
         username = "maria@gmail.com";
         password = "123456";
@@ -95,6 +124,370 @@ public class ProductResourceITTests {
         result.andExpect(jsonPath("$.content[2].name").value("PC Gamer Alfa"));
     }
 
+    @Test
+    public void findAllFuzzyShouldFindMisspelledNameWithDefaultConfiguration() throws Exception {
+
+        // product.search.fuzzy.enabled vem ligado e a listagem normal continua no banco (product.search.index.enabled=false)
+        ResultActions result = mockMvc.perform(get("/products?fuzzy=true&name=Macbok")
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(1));
+        result.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+    }
+
+    @Test
+    public void findAllWithFacetsShouldCountProductsPerCategoryForNameAndPriceRange() throws Exception {
+
+        // Nome com "r" e preço entre 100 e 2200: o "The Lord of the Rings" (90.5) e os PC Gamer mais caros ficam de fora
+        ResultActions result = mockMvc.perform(get("/products?facets=true&name=r&minPrice=100&maxPrice=2200&categoryId=2")
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        // A pagina respeita a categoria pedida: só o "Rails for Dummies"
+        result.andExpect(jsonPath("$.totalElements").value(1));
+        result.andExpect(jsonPath("$.content[0].id").value(5));
+        // Os facets ignoram a categoria pedida e vem ordenados pelo nome da categoria
+        result.andExpect(jsonPath("$.facets.length()").value(3));
+        result.andExpect(jsonPath("$.facets[0].name").value("Computadores"));
+        result.andExpect(jsonPath("$.facets[0].count").value(18));
+        result.andExpect(jsonPath("$.facets[1].name").value("Eletrônicos"));
+        result.andExpect(jsonPath("$.facets[1].count").value(1));
+        result.andExpect(jsonPath("$.facets[2].name").value("Livros"));
+        result.andExpect(jsonPath("$.facets[2].count").value(1));
+    }
+
+    @Test
+    public void findAllSlicedShouldReturnSliceWithoutTotalElements() throws Exception {
+
+        ResultActions first = mockMvc.perform(get("/products?count=none&page=0&size=10")
+                .accept(MediaType.APPLICATION_JSON));
+
+        first.andExpect(status().isOk());
+        first.andExpect(jsonPath("$.content.length()").value(10));
+        first.andExpect(jsonPath("$.last").value(false));
+        first.andExpect(jsonPath("$.totalElements").doesNotExist());
+        first.andExpect(jsonPath("$.totalPages").doesNotExist());
+
+        // A ultima pagina: o produto a mais da consulta nao veio, entao nao existe proxima pagina
+        ResultActions last = mockMvc.perform(get("/products?count=none&page=2&size=10")
+                .accept(MediaType.APPLICATION_JSON));
+
+        last.andExpect(status().isOk());
+        last.andExpect(jsonPath("$.content.length()").value(5));
+        last.andExpect(jsonPath("$.last").value(true));
+    }
+
+    @Test
+    public void findAllApproximateShouldNotReportFewerElementsThanThePageShows() throws Exception {
+
+        mockMvc.perform(get("/products?count=approximate&page=0&size=10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.totalElements").value(countTotalProducts));
+
+        // Dois produtos novos. Com o rollback do teste o ProductCountCache nao é limpo e continua com o total antigo
+        ProductDTO productDTO = Factory.createProductDTO();
+        productDTO.setId(null);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/products")
+                            .header("Authorization", "Bearer " + bearerToken)
+                            .content(objectMapper.writeValueAsString(productDTO))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isCreated());
+        }
+
+        // A ultima pagina mostra 7 produtos depois dos 20 anteriores, entao o total nao pode ser o 25 do cache
+        ResultActions result = mockMvc.perform(get("/products?count=approximate&page=2&size=10")
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.content.length()").value(7));
+        result.andExpect(jsonPath("$.totalElements").value(countTotalProducts + 2));
+    }
+
+    @Test
+    public void findAllByCursorShouldWalkAllProductsByNameWithoutDuplicatesOrGaps() throws Exception {
+
+        List<Long> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+
+        // Segue o nextCursor de cada resposta até ele vir null
+        while (cursor != null) {
+            String json = mockMvc.perform(get("/products")
+                            .param("cursor", cursor)
+                            .param("size", "7")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            JsonNode page = objectMapper.readTree(json);
+            for (JsonNode product : page.get("content")) {
+                ids.add(product.get("id").asLong());
+                names.add(product.get("name").asText());
+            }
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        }
+
+        Assertions.assertEquals(4, pages);
+        Assertions.assertEquals(countTotalProducts, ids.size());
+        Assertions.assertEquals(countTotalProducts, new HashSet<>(ids).size());
+        Assertions.assertEquals(names.stream().sorted().toList(), names);
+        Assertions.assertEquals("Macbook Pro", names.get(0));
+    }
+
+    @Test
+    public void findAllShouldFilterByPriceRangeAndSortByPrice() throws Exception {
+
+        ResultActions result = mockMvc.perform(get("/products?minPrice=1200&maxPrice=1280&sort=price,asc")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // Limites inclusivos: PC Gamer (1200), Macbook Pro (1250) e PC Gamer Turbo (1280)
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(3));
+        result.andExpect(jsonPath("$.content[0].id").value(4));
+        result.andExpect(jsonPath("$.content[1].id").value(3));
+        result.andExpect(jsonPath("$.content[2].id").value(17));
+    }
+
+    @Test
+    public void findAllShouldSortByPrice() throws Exception {
+
+        ResultActions result = mockMvc.perform(get("/products?page=0&size=3&sort=price")
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.totalElements").value(countTotalProducts));
+        result.andExpect(jsonPath("$.content[0].name").value("The Lord of the Rings"));
+        result.andExpect(jsonPath("$.content[1].name").value("Rails for Dummies"));
+        result.andExpect(jsonPath("$.content[2].name").value("PC Gamer"));
+    }
+
+    @Test
+    public void findAllShouldFilterByDateRangeAndSortByDateDescending() throws Exception {
+
+        // Todos menos o "The Lord of the Rings" sao de 2020-07-14, os empates saem pelo id
+        ResultActions result = mockMvc.perform(get("/products?page=0&size=25&sort=date,desc")
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.content[0].id").value(2));
+        result.andExpect(jsonPath("$.content[1].id").value(3));
+        result.andExpect(jsonPath("$.content[24].id").value(1));
+
+        mockMvc.perform(get("/products")
+                        .param("toDate", "2020-07-14T00:00:00Z")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(1));
+
+        mockMvc.perform(get("/products")
+                        .param("fromDate", "2020-07-14T00:00:00Z")
+                        .param("maxPrice", "1200")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    public void findAllShouldReturnBadRequestWhenSortPropertyIsInvalid() throws Exception {
+
+        ResultActions result = mockMvc.perform(get("/products?sort=imgUrl")
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isBadRequest());
+        result.andExpect(jsonPath("$.message").value("Ordenação inválida: imgUrl"));
+    }
+
+    @Test
+    public void findAllStreamedShouldReturnSortedPageWithPageMetadata() throws Exception {
+
+        MvcResult asyncResult = mockMvc.perform(get("/products?stream=true&page=0&size=12&sort=name,asc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.content.length()").value(12));
+        result.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+        result.andExpect(jsonPath("$.content[1].name").value("PC Gamer"));
+        result.andExpect(jsonPath("$.page.size").value(12));
+        result.andExpect(jsonPath("$.page.number").value(0));
+        result.andExpect(jsonPath("$.page.totalElements").value(countTotalProducts));
+        result.andExpect(jsonPath("$.page.totalPages").value(3));
+    }
+
+    @Test
+    public void exportShouldStreamOneJsonLinePerProductWhenFormatIsNdjson() throws Exception {
+
+        MvcResult asyncResult = mockMvc.perform(get("/products/export?format=ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+        result.andExpect(status().isOk());
+        String[] lines = result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(countTotalProducts, lines.length);
+        ProductDTO first = objectMapper.readValue(lines[0], ProductDTO.class);
+        Assertions.assertEquals(1L, first.getId());
+        Assertions.assertFalse(first.getCategories().isEmpty());
+    }
+
+    @Test
+    public void exportShouldStreamHeaderAndOneRowPerProductWhenFormatIsCsv() throws Exception {
+
+        MvcResult asyncResult = mockMvc.perform(get("/products/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions result = mockMvc.perform(asyncDispatch(asyncResult));
+
+        result.andExpect(status().isOk());
+        String[] lines = result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+        Assertions.assertEquals(countTotalProducts + 1, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("id,name,"));
+    }
+
+    @Test
+    public void exportShouldReturnBadRequestWhenFormatIsInvalid() throws Exception {
+
+        ResultActions result = mockMvc.perform(get("/products/export?format=xml"));
+
+        result.andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void bulkInsertShouldInsertValidProductsAndReportInvalidOnes() throws Exception {
+
+        ProductDTO valid = Factory.createProductDTO();
+        valid.setId(null);
+        ProductDTO invalid = Factory.createProductDTO();
+        invalid.setId(null);
+        invalid.setName("");
+
+        String jsonBody = objectMapper.writeValueAsString(List.of(valid, invalid, valid));
+
+        ResultActions result = mockMvc.perform(post("/products/bulk")
+                .header("Authorization", "Bearer " + bearerToken)
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.inserted").value(2));
+        result.andExpect(jsonPath("$.failed").value(1));
+        result.andExpect(jsonPath("$.errors[0].index").value(1));
+
+        mockMvc.perform(get("/products?page=0&size=12")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.totalElements").value(countTotalProducts + 2));
+    }
+
+    @Test
+    public void bulkInsertShouldReturnUnauthorizedWhenNoToken() throws Exception {
+
+        ResultActions result = mockMvc.perform(post("/products/bulk")
+                .content("[]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void findByIdShouldReturnCborWhenAcceptIsCbor() throws Exception {
+
+        ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+                .accept(MediaType.APPLICATION_CBOR));
+
+        result.andExpect(status().isOk());
+        result.andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        ProductDTO dto = new CBORMapper().findAndRegisterModules()
+                .readValue(result.andReturn().getResponse().getContentAsByteArray(), ProductDTO.class);
+        Assertions.assertEquals(existingId, dto.getId());
+    }
+
+    @Test
+    public void findAllShouldReturnJsonWhenAcceptIsNotInformed() throws Exception {
+
+        ResultActions result = mockMvc.perform(get("/products?page=0&size=12"));
+
+        result.andExpect(status().isOk());
+        result.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void findByIdShouldReturnNotModifiedWhenEtagMatches() throws Exception {
+
+        String etag = mockMvc.perform(get("/products/{id}", existingId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isNotModified());
+        result.andExpect(content().string(""));
+    }
+
+    @Test
+    public void findByIdShouldReturnNewEtagWhenProductIsUpdated() throws Exception {
+
+        String etag = mockMvc.perform(get("/products/{id}", existingId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/products/{id}", existingId)
+                        .header("Authorization", "Bearer " + bearerToken)
+                        .content(objectMapper.writeValueAsString(Factory.createProductDTO()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(header().string("ETag", Matchers.not(etag)));
+    }
+
+    @Test
+    public void findByIdShouldReturnNewEtagWhenCategoryOfProductIsRenamed() throws Exception {
+
+        String etag = mockMvc.perform(get("/products/{id}", existingId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // O produto 1 é da categoria 2 (Livros): a versão dele nao muda, mas o nome da categoria sim
+        mockMvc.perform(put("/categories/{id}", 2L)
+                        .header("Authorization", "Bearer " + bearerToken)
+                        .content(objectMapper.writeValueAsString(new CategoryDTO(2L, "Livros e Revistas")))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        ResultActions result = mockMvc.perform(get("/products/{id}", existingId)
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON));
+
+        result.andExpect(status().isOk());
+        result.andExpect(jsonPath("$.categories[0].name").value("Livros e Revistas"));
+        result.andExpect(header().string("ETag", Matchers.not(etag)));
+    }
+
     @Test
     public void updateShouldReturnProductDTOWhenIdExist() throws Exception {
 
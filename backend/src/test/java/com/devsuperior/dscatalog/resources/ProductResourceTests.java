@@ -1,7 +1,12 @@
 package com.devsuperior.dscatalog.resources;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.ProductBulkService;
+import com.devsuperior.dscatalog.services.ProductExportService;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.Factory;
@@ -14,7 +19,9 @@ import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfi
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
@@ -42,6 +49,15 @@ public class ProductResourceTests {
     // e precisa mockar bean do sistema. Ex. quando usar o @WebMvcTest, usaremos o @MockBean
     @MockBean
     private ProductService service;
+
+    @MockBean
+    private ProductExportService exportService;
+
+    @MockBean
+    private ProductBulkService bulkService;
+
+    @MockBean
+    private ResponseCache responseCache;
     // Usar o PageImpl pra instanciar um objeto concreto
     private PageImpl<ProductDTO> page;
     private ProductDTO productDTO;
@@ -71,7 +87,7 @@ public class ProductResourceTests {
 
         // Quando chamarmos o metodo findAllPaged do ProductService passando qualquer argumento any()
         // ele terá que retornar um objeto page do tipo PageImpl<ProductDTO>
-        when(service.findAllPaged(any())).thenReturn(page);
+        when(service.findAllPaged(any(ProductFilterDTO.class), any(Pageable.class))).thenReturn(page);
 
         // Simular o comportamento do findById do ProductResource
         // Quando chamarmos o findById do ProductService passando um id existente ele deve retornar um ProductDTO
@@ -83,6 +99,8 @@ public class ProductResourceTests {
         when(service.update(eq(existingId), any())).thenReturn(productDTO);
         // Simular o update com um id inexistente
         when(service.update(eq(nonExistingId), any())).thenThrow(ResourceNotFoundException.class);
+        // Simular o update que perdeu para outra alteração simultanea do mesmo produto (@Version)
+        when(service.update(eq(dependentId), any())).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, dependentId));
 
         // Lembre-se: veja o metodo delete do ProductService e veja que seu retorno é void
         // entao 1º falamos a consequencia (doNothing) e depois o when
@@ -108,6 +126,24 @@ public class ProductResourceTests {
         result.andExpect(status().isOk());
     }
 
+    @Test
+    // Dois modos de listagem na mesma requisição (cursor + count) nao podem dar 500 por mapeamento ambiguo
+    public void findAllShouldReturnBadRequestWhenListingModesAreCombined() throws Exception {
+
+        mockMvc.perform(get("/products?cursor=&count=none").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products?stream=true&count=approximate").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    // Os facets sao da busca exata, entao nao podem acompanhar a busca fuzzy
+    public void findAllShouldReturnBadRequestWhenFuzzyAndFacetsAreCombined() throws Exception {
+
+        mockMvc.perform(get("/products?fuzzy=true&facets=true&name=macbok").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     // quando chamar o findById do ProductResource passando um id existente deveria retornar um Product
     public void findByIdShouldReturnProductWhenIdExists() throws Exception {
@@ -174,6 +210,22 @@ public class ProductResourceTests {
         result.andExpect(status().isNotFound());
     }
 
+    // quando outra requisição alterou o produto ao mesmo tempo
+    @Test
+    public void updateShouldReturnConflictWhenVersionDoesNotMatch() throws Exception {
+
+        String jsonBody = objectMapper.writeValueAsString(productDTO);
+
+        ResultActions result = mockMvc.perform(put("/products/{id}", dependentId)
+                .content(jsonBody)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON));
+
+        // Verificar se retornou um status 409
+        result.andExpect(status().isConflict());
+        result.andExpect(jsonPath("$.status").value(409));
+    }
+
     @Test
     // Deverá retornar no content quando chamar o delete com um id existente
     public void deleteShouldReturnNoContentWhenIdExists() throws Exception {
@@ -0,0 +1,88 @@
+package com.devsuperior.dscatalog.resources;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.services.CategoryService;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sem @Transactional: a limpeza do cache acontece depois do commit das alterações
+@SpringBootTest(properties = "response-cache.enabled=true")
+@AutoConfigureMockMvc
+public class ResponseCacheITTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        responseCache.clear();
+    }
+
+    @Test
+    public void findAllShouldReturnGzipBodyWhenClientAcceptsGzip() throws Exception {
+
+        MvcResult identity = mockMvc.perform(get("/products?page=0&size=12"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        MvcResult gzip = mockMvc.perform(get("/products?page=0&size=12").header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", identity.getResponse().getHeader("ETag")))
+                .andReturn();
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray())).readAllBytes();
+        Assertions.assertEquals(identity.getResponse().getContentAsString(StandardCharsets.UTF_8), new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void findAllShouldReturnNotModifiedWhenEtagMatchesCachedResponse() throws Exception {
+
+        String etag = mockMvc.perform(get("/products?page=0&size=12"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products?page=0&size=12").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void categoriesShouldBeReloadedWhenCategoryIsUpdated() throws Exception {
+
+        String etag = mockMvc.perform(get("/categories"))
+                .andReturn().getResponse().getHeader("ETag");
+        CategoryDTO original = categoryService.findById(2L);
+
+        try {
+            categoryService.update(2L, new CategoryDTO(2L, "Livros e Revistas"));
+
+            String body = mockMvc.perform(get("/categories").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            Assertions.assertTrue(body.contains("Livros e Revistas"));
+        } finally {
+            categoryService.update(2L, original);
+        }
+    }
+}
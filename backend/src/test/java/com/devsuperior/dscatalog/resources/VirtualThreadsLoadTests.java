@@ -0,0 +1,43 @@
+package com.devsuperior.dscatalog.resources;
+
+import com.devsuperior.dscatalog.tests.LoadTestSupport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+
+// Mesmo teste de PlatformThreadsLoadTests com spring.threads.virtual.enabled=true
+// Cada requisição roda em uma thread virtual, o limite passa a ser o pool de conexões do Hikari
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=200",
+        "spring.datasource.hikari.maximum-pool-size=10"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class VirtualThreadsLoadTests {
+
+    private static final int CONCURRENCY = 1000;
+    private static final int REQUESTS = 20000;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void findByIdShouldAnswerAllRequestsUnderHighConcurrency() throws Exception {
+
+        // aquecimento (JIT, pool de conexões) antes da medição
+        LoadTestSupport.run("Virtual threads (aquecimento)", 100, 2000, this::productUri);
+
+        LoadTestSupport.Result result = LoadTestSupport.run("Virtual threads", CONCURRENCY, REQUESTS, this::productUri);
+
+        Assertions.assertEquals(0, result.errors());
+    }
+
+    // GET /products/{id} sempre consulta o banco (versão + linhas do produto), ids 1 a 25 do import.sql
+    private URI productUri(int i) {
+        return URI.create("http://localhost:" + port + "/products/" + (i % 25 + 1));
+    }
+}
@@ -0,0 +1,83 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.EmailDTO;
+import com.devsuperior.dscatalog.dto.NewPasswordDTO;
+import com.devsuperior.dscatalog.entities.PasswordRecover;
+import com.devsuperior.dscatalog.repositories.PasswordRecoverRepository;
+import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@SpringBootTest
+@Transactional
+public class AuthServiceITTests {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private PasswordRecoverPurger purger;
+
+    @Autowired
+    private PasswordRecoverRepository passwordRecoverRepository;
+
+    @Test
+    public void createRecoverTokenShouldUpdateSameRowWhenEmailRequestsAgain() {
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+        PasswordRecover first = passwordRecoverRepository.findByEmail("maria@gmail.com");
+        Long firstId = first.getId();
+        String firstHash = first.getTokenHash();
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+        PasswordRecover entity = passwordRecoverRepository.findByEmail("maria@gmail.com");
+
+        Assertions.assertEquals(firstId, entity.getId());
+        Assertions.assertNotEquals(firstHash, entity.getTokenHash());
+    }
+
+    @Test
+    public void saveNewPasswordShouldAcceptTokenOnlyOnce() {
+
+        PasswordRecover entity = new PasswordRecover();
+        entity.setEmail("maria@gmail.com");
+        entity.setTokenHash(AuthService.hashToken("token-maria"));
+        entity.setExpiration(Instant.now().plusSeconds(600));
+        passwordRecoverRepository.save(entity);
+
+        NewPasswordDTO dto = new NewPasswordDTO("token-maria", "novaSenha123");
+
+        authService.saveNewPassword(dto);
+
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> authService.saveNewPassword(dto));
+    }
+
+    @Test
+    public void purgeExpiredTokensShouldDeleteOnlyExpiredTokens() {
+
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            PasswordRecover entity = new PasswordRecover();
+            entity.setEmail("expired" + i + "@gmail.com");
+            entity.setTokenHash(AuthService.hashToken("expired" + i));
+            entity.setExpiration(now.minusSeconds(60));
+            passwordRecoverRepository.save(entity);
+        }
+        PasswordRecover valid = new PasswordRecover();
+        valid.setEmail("valid@gmail.com");
+        valid.setTokenHash(AuthService.hashToken("valid"));
+        valid.setExpiration(now.plusSeconds(600));
+        passwordRecoverRepository.save(valid);
+
+        long deleted = purger.purgeExpiredTokens();
+
+        Assertions.assertTrue(deleted >= 5);
+        Assertions.assertNull(passwordRecoverRepository.findByEmail("expired0@gmail.com"));
+        Assertions.assertNotNull(passwordRecoverRepository.findByEmail("valid@gmail.com"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.EmailDTO;
+import com.devsuperior.dscatalog.dto.NewPasswordDTO;
+import com.devsuperior.dscatalog.entities.EmailOutbox;
+import com.devsuperior.dscatalog.repositories.EmailOutboxRepository;
+import com.devsuperior.dscatalog.repositories.PasswordRecoverRepository;
+import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+// Mesmo fluxo de recuperação de senha no modo signed: o token vem do email na fila (tb_email_outbox)
+// e nada é gravado nem lido da tb_password_recover
+@SpringBootTest(properties = {
+        "email.password-recover.token.mode=signed",
+        "email.password-recover.token.secret=0123456789abcdef0123456789abcdef"
+})
+@Transactional
+public class AuthServiceSignedTokenITTests {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private PasswordRecoverRepository passwordRecoverRepository;
+
+    @Value("${email.password-recover.uri}")
+    private String recoverUri;
+
+    @Test
+    public void saveNewPasswordShouldAcceptSignedTokenOnlyOnce() {
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+
+        Assertions.assertNull(passwordRecoverRepository.findByEmail("maria@gmail.com"));
+
+        NewPasswordDTO dto = new NewPasswordDTO(tokenFromQueuedEmail("maria@gmail.com"), "novaSenha123");
+        authService.saveNewPassword(dto);
+
+        // A senha mudou, entao a impressão dentro do token nao confere mais
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> authService.saveNewPassword(dto));
+    }
+
+    @Test
+    public void saveNewPasswordShouldThrowResourceNotFoundExceptionWhenTokenIsInvalid() {
+
+        NewPasswordDTO dto = new NewPasswordDTO("token-invalido", "novaSenha123");
+
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> authService.saveNewPassword(dto));
+    }
+
+    // O link no corpo do email termina com ". Validade de N minutos"
+    private String tokenFromQueuedEmail(String email) {
+        EmailOutbox queued = outboxRepository.findAll().stream()
+                .filter(e -> e.getRecipient().equals(email))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        String body = queued.getBody();
+        int start = body.indexOf(recoverUri) + recoverUri.length();
+        return body.substring(start, body.indexOf(". Validade", start));
+    }
+}
@@ -0,0 +1,87 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.EmailDTO;
+import com.devsuperior.dscatalog.entities.EmailOutbox;
+import com.devsuperior.dscatalog.repositories.EmailOutboxRepository;
+import com.devsuperior.dscatalog.repositories.PasswordRecoverRepository;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+// O envio acontece em outra thread (EmailOutboxDispatcher) depois do commit, entao este teste nao é @Transactional
+// O GreenMail sobe um servidor SMTP na porta 3025, a mesma do application-test.properties, com o usuario de spring.mail.username
+// As tarefas @Scheduled ficam ligadas só neste contexto, que é fechado no fim da classe pra parar o dispatcher
+@SpringBootTest(properties = "scheduling.enabled=true")
+@DirtiesContext
+public class EmailOutboxITTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test@gmail.com", "123456"));
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private PasswordRecoverRepository passwordRecoverRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        passwordRecoverRepository.deleteAll();
+    }
+
+    @Test
+    public void createRecoverTokenShouldQueueEmailAndDispatcherShouldDeliverIt() throws Exception {
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+
+        Assertions.assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        Assertions.assertEquals("maria@gmail.com", received[0].getAllRecipients()[0].toString());
+        Assertions.assertEquals("Recuperação de senha", received[0].getSubject());
+
+        // Enviado com sucesso: o registro sai da fila
+        Assertions.assertTrue(waitUntil(() -> outboxRepository.count() == 0));
+    }
+
+    @Test
+    public void dispatcherShouldKeepEmailQueuedWithBackoffWhenServerIsDown() throws Exception {
+
+        greenMail.stop();
+
+        authService.createRecoverToken(new EmailDTO("maria@gmail.com"));
+
+        Assertions.assertTrue(waitUntil(() -> outboxRepository.findAll().stream().anyMatch(e -> e.getAttempts() > 0)));
+
+        List<EmailOutbox> queued = outboxRepository.findAll();
+        Assertions.assertEquals(1, queued.size());
+        Assertions.assertFalse(queued.get(0).isFailed());
+        Assertions.assertNotNull(queued.get(0).getLastError());
+        Assertions.assertTrue(queued.get(0).getNextAttemptAt().isAfter(queued.get(0).getCreatedAt()));
+    }
+
+    private boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,94 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.UserInsertDTO;
+import com.devsuperior.dscatalog.tests.Factory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+// Tempo das inserções pelos services (uma transação com commit por inserção), com id por sequence em blocos de 50
+// mvn test -Dloadtest=true -Dtest=InsertBenchmarkTests
+// So roda com -Dloadtest=true pra nao atrasar o build normal
+// Usa um banco H2 proprio pra que as linhas gravadas (com commit) nao apareçam nos outros testes
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:insertbenchmark")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class InsertBenchmarkTests {
+
+    private static final int WARMUP = 500;
+    private static final int INSERTS = 5000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void productInsert() {
+
+        benchmark("ProductService.insert", WARMUP, INSERTS, i -> {
+            ProductDTO dto = Factory.createProductDTO();
+            dto.setId(null);
+            dto.setName("Produto " + i);
+            return productService.insert(dto).getId();
+        });
+    }
+
+    @Test
+    public void categoryInsert() {
+
+        benchmark("CategoryService.insert", WARMUP, INSERTS, i -> categoryService.insert(new CategoryDTO(null, "Categoria " + i)).getId());
+    }
+
+    // O BCrypt da senha domina o tempo de cada inserção, entao medimos menos usuarios
+    @Test
+    public void userInsert() {
+
+        benchmark("UserService.insert", WARMUP / 10, INSERTS / 10, i -> {
+            // O construtor do UserInsertDTO nao é publico, montamos como se viesse do json do POST /users
+            UserInsertDTO dto = objectMapper.convertValue(Map.of(
+                    "firstName", "Usuario",
+                    "lastName", "Teste " + i,
+                    "email", "usuario" + i + "@gmail.com",
+                    "password", "12345678"), UserInsertDTO.class);
+            return userService.insert(dto).getId();
+        });
+    }
+
+    // insert grava o item de numero i e devolve o id gerado
+    private void benchmark(String label, int warmup, int total, IntFunction<Long> insert) {
+
+        // aquecimento (JIT, pool de conexões) antes da medição
+        for (int i = 0; i < warmup; i++) {
+            insert.apply(i);
+        }
+
+        Set<Long> ids = new HashSet<>();
+        long start = System.nanoTime();
+        for (int i = warmup; i < warmup + total; i++) {
+            ids.add(insert.apply(i));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s: %d inserções -> %.0f inserções/s, media %.3f ms%n",
+                label, total, total / (elapsed / 1_000_000_000.0), elapsed / 1_000_000.0 / total);
+
+        Assertions.assertEquals(total, ids.size());
+    }
+}
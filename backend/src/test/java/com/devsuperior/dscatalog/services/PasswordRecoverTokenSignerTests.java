@@ -0,0 +1,72 @@
+package com.devsuperior.dscatalog.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public class PasswordRecoverTokenSignerTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private PasswordRecoverTokenSigner signer;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        signer = new PasswordRecoverTokenSigner("signed", SECRET);
+        now = Instant.now();
+    }
+
+    @Test
+    public void verifyShouldReturnClaimsWhenTokenIsValid() {
+
+        String token = signer.sign("maria@gmail.com", now.plusSeconds(600), "hash-atual");
+
+        Optional<PasswordRecoverTokenSigner.Claims> claims = signer.verify(token, now);
+
+        Assertions.assertTrue(claims.isPresent());
+        Assertions.assertEquals("maria@gmail.com", claims.get().email());
+        Assertions.assertTrue(signer.matchesPassword(claims.get(), "hash-atual"));
+    }
+
+    @Test
+    public void matchesPasswordShouldReturnFalseWhenPasswordChanged() {
+
+        String token = signer.sign("maria@gmail.com", now.plusSeconds(600), "hash-atual");
+
+        Assertions.assertFalse(signer.matchesPassword(signer.verify(token, now).get(), "hash-novo"));
+    }
+
+    @Test
+    public void verifyShouldReturnEmptyWhenTokenExpired() {
+
+        String token = signer.sign("maria@gmail.com", now.minusSeconds(1), "hash-atual");
+
+        Assertions.assertTrue(signer.verify(token, now).isEmpty());
+    }
+
+    @Test
+    public void verifyShouldReturnEmptyWhenTokenTamperedOrSignedWithOtherSecret() {
+
+        String token = signer.sign("maria@gmail.com", now.plusSeconds(600), "hash-atual");
+        String forged = signer.sign("alex@gmail.com", now.plusSeconds(600), "hash-atual");
+        String mixed = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+        PasswordRecoverTokenSigner other = new PasswordRecoverTokenSigner("signed", SECRET.replace('0', 'x'));
+
+        Assertions.assertTrue(signer.verify(mixed, now).isEmpty());
+        Assertions.assertTrue(other.verify(token, now).isEmpty());
+        Assertions.assertTrue(signer.verify("nao-e-um-token", now).isEmpty());
+        Assertions.assertTrue(signer.verify("%%%.%%%", now).isEmpty());
+    }
+
+    @Test
+    public void constructorShouldThrowWhenSignedModeHasShortSecret() {
+
+        Assertions.assertThrows(IllegalStateException.class, () -> new PasswordRecoverTokenSigner("signed", ""));
+        Assertions.assertThrows(IllegalStateException.class, () -> new PasswordRecoverTokenSigner("jwt", SECRET));
+        Assertions.assertFalse(new PasswordRecoverTokenSigner("table", "").isEnabled());
+    }
+}
@@ -0,0 +1,62 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Gravação de muitos produtos em uma transação, conferida pela quantidade de comandos preparados (estatisticas do Hibernate)
+// Com id por sequence (blocos de 50) o Hibernate agrupa os INSERTs em lotes JDBC,
+// com IDENTITY seria um comando por produto e mais um por categoria
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class ProductInsertBatchITTests {
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void saveAllShouldBatchInsertsWhenIdsComeFromSequence() {
+
+        int total = 200;
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            Product product = new Product(null, "Produto " + i, "Descrição " + i, 10.0 + i, null, Instant.now());
+            product.getCategories().add(categoryRepository.getReferenceById(1L));
+            products.add(product);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        repository.saveAll(products);
+        entityManager.flush();
+
+        // 200 produtos + 200 linhas da tb_product_category em lotes de 50 = 8 lotes, mais 4 chamadas da sequence
+        // Com IDENTITY seriam pelo menos 400 comandos
+        Assertions.assertTrue(statistics.getPrepareStatementCount() < 20,
+                "comandos preparados: " + statistics.getPrepareStatementCount());
+        Assertions.assertEquals(total, products.stream().map(Product::getId).distinct().count());
+    }
+}
@@ -1,6 +1,7 @@
 package com.devsuperior.dscatalog.services;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import org.junit.jupiter.api.Assertions;
@@ -83,7 +84,7 @@ public class ProductServiceITTests {
         // um Page<ProductDTO>
         PageRequest pageRequest = PageRequest.of(0, 10);
 
-        Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        Page<ProductDTO> result = service.findAllPaged(new ProductFilterDTO("", "0"), pageRequest);
 
         // Não pode estar vazio, tem que ter objeto
         Assertions.assertFalse(result.isEmpty());
@@ -103,7 +104,7 @@ public class ProductServiceITTests {
         // mas sabemos que nao existe, pois temos apenas 25 elementos, 3 paginas
         PageRequest pageRequest = PageRequest.of(50, 10);
 
-        Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        Page<ProductDTO> result = service.findAllPaged(new ProductFilterDTO("", "0"), pageRequest);
 
         // Tem que ser verdadeiro se o resultado é vazio
         Assertions.assertTrue(result.isEmpty());
@@ -116,7 +117,7 @@ public class ProductServiceITTests {
         // Buscar uma pagina de numero zero com 10 elementos ordenada pelo name
         PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("name"));
 
-        Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        Page<ProductDTO> result = service.findAllPaged(new ProductFilterDTO("", "0"), pageRequest);
 
         // Testar se nao é vazio
         Assertions.assertFalse(result.isEmpty());
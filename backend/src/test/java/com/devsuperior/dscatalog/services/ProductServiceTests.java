@@ -1,10 +1,18 @@
 package com.devsuperior.dscatalog.services;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.cache.ProductCountCache;
+import com.devsuperior.dscatalog.services.cache.ProductQueryCache;
+import com.devsuperior.dscatalog.services.cache.ResponseCache;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.services.exceptions.ServiceUnavailableException;
+import com.devsuperior.dscatalog.services.search.ProductNameSuggester;
+import com.devsuperior.dscatalog.services.search.ProductSearchIndex;
 import com.devsuperior.dscatalog.tests.Factory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +32,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 // Aqui vamos fazer um teste de unidade usando o Mockito pra ser um teste isolado e mais rapido
 // O service nao vai ter acesso ao banco de dados real na hora de fazer os testes
@@ -40,6 +49,21 @@ public class ProductServiceTests {
     @Mock
     private ProductRepository repository;
 
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ProductCountCache countCache;
+
+    @Mock
+    private ProductNameSuggester nameSuggester;
+
+    @Mock
+    private ProductQueryCache queryCache;
+
+    @Mock
+    private ResponseCache responseCache;
+
     private long existingId;
     private long nonExistingId;
     private long dependentId;
@@ -134,18 +158,45 @@ public class ProductServiceTests {
     }
 
     // Ele deve retornar uma page quando chamar o metodo findAllPaged
+    @Test
+    public void findAllPagedFuzzyShouldThrowBadRequestExceptionWhenIndexIsDisabled() {
+
+        // O searchIndex simulado responde isEnabled() = false
+        Assertions.assertThrows(BadRequestException.class, () -> {
+            service.findAllPagedFuzzy(new ProductFilterDTO("macbok", "0"), PageRequest.of(0, 10));
+        });
+    }
+
+    @Test
+    public void findAllPagedFuzzyShouldThrowServiceUnavailableExceptionWhenIndexIsNotReady() {
+
+        Mockito.when(searchIndex.isEnabled()).thenReturn(true);
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> {
+            service.findAllPagedFuzzy(new ProductFilterDTO("macbok", "0"), PageRequest.of(0, 10));
+        });
+    }
+
     @Test
     public void findAllPageShouldReturnPage() {
 
         // Criamos uma pagina zero de tamanho 10
         Pageable pageable = PageRequest.of(0, 10);
-        // chamamos o metodo findAllPaged do ProductService passando um pageable como parametro
-        Page<ProductDTO> result = service.findAllPaged(pageable);
+        ProductFilterDTO filter = new ProductFilterDTO("", "0");
+
+        // O ProductQueryCache simulado executa direto o loader, como um cache vazio
+        Mockito.when(queryCache.get(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        Mockito.when(repository.searchProductsPage(filter, false, pageable))
+                .thenReturn(List.of(Factory.createProductDTO()));
+
+        // chamamos o metodo findAllPaged do ProductService passando o filtro e um pageable como parametro
+        Page<ProductDTO> result = service.findAllPaged(filter, pageable);
         // testar se nao é nulo o resultado
         Assertions.assertNotNull(result);
-        // testar para ver se o findAll foi chamado dentro do findAllPaged do ProductService
+        // testar para ver se a busca paginada do repository foi chamada dentro do findAllPaged do ProductService
         // o times é pra indicar quantas vezes ele deveria ter sido chamado, no caso de 1, nem precisaria colocar ele
-        Mockito.verify(repository, Mockito.times(1)).findAll(pageable);
+        Mockito.verify(repository, Mockito.times(1)).searchProductsPage(filter, false, pageable);
     }
 
 
@@ -0,0 +1,65 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.repositories.RoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Sem @Transactional de proposito: cada chamada abre a sua sessão, como em requisições diferentes,
+// entao o que evita a ida ao banco é o cache de segundo nivel e nao o cache da sessão
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class SecondLevelCacheITTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findByIdShouldNotQueryDatabaseWhenCategoryIsCached() {
+
+        categoryService.findById(1L);
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 10; i++) {
+            categoryService.findById(1L);
+        }
+
+        Assertions.assertTrue(statements > 0);
+        Assertions.assertEquals(statements, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(10L, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void findByAuthorityShouldNotQueryDatabaseWhenResultIsCached() {
+
+        roleRepository.findByAuthority("ROLE_OPERATOR");
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("ROLE_OPERATOR", roleRepository.findByAuthority("ROLE_OPERATOR").getAuthority());
+        }
+
+        Assertions.assertEquals(statements, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(10L, statistics.getQueryCacheHitCount());
+    }
+}
@@ -0,0 +1,29 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class CategorySnapshotTests {
+
+    @Test
+    public void etagShouldBeEqualWhenContentIsEqual() {
+
+        CategorySnapshot a = new CategorySnapshot(List.of(new CategoryDTO(1L, "Livros"), new CategoryDTO(2L, "Eletrônicos")));
+        CategorySnapshot b = new CategorySnapshot(List.of(new CategoryDTO(1L, "Livros"), new CategoryDTO(2L, "Eletrônicos")));
+
+        Assertions.assertEquals(a.getEtag(), b.getEtag());
+        Assertions.assertTrue(a.getEtag().startsWith("\"") && a.getEtag().endsWith("\""));
+    }
+
+    @Test
+    public void etagShouldChangeWhenCategoryIsRenamed() {
+
+        CategorySnapshot a = new CategorySnapshot(List.of(new CategoryDTO(1L, "Livros")));
+        CategorySnapshot b = new CategorySnapshot(List.of(new CategoryDTO(1L, "Livros usados")));
+
+        Assertions.assertNotEquals(a.getEtag(), b.getEtag());
+    }
+}
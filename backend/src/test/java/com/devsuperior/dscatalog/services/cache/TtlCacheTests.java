@@ -0,0 +1,61 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class TtlCacheTests {
+
+    @Test
+    public void putShouldEvictLeastRecentlyUsedWhenMaxSizeIsExceeded() {
+
+        TtlCache<String, Long> cache = new TtlCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1L);
+        cache.put("b", 2L);
+        cache.get("a");
+        cache.put("c", 3L);
+
+        Assertions.assertEquals(1L, cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(3L, cache.get("c"));
+    }
+
+    @Test
+    public void getShouldReturnNullWhenEntryIsExpired() {
+
+        TtlCache<String, Long> cache = new TtlCache<>(10, Duration.ZERO);
+        cache.put("a", 1L);
+
+        Assertions.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void getWithLoaderShouldLoadOnlyOnceWhileEntryIsValid() {
+
+        TtlCache<String, Long> cache = new TtlCache<>(10, Duration.ofMinutes(1));
+        long[] calls = new long[1];
+
+        cache.get("a", () -> ++calls[0]);
+        cache.get("a", () -> ++calls[0]);
+
+        Assertions.assertEquals(1L, calls[0]);
+    }
+
+    @Test
+    public void getWithLoaderShouldNotStoreValueLoadedBeforeInvalidation() {
+
+        TtlCache<String, Long> cache = new TtlCache<>(10, Duration.ofMinutes(1));
+        cache.put("b", 2L);
+
+        // Outra chave invalidada enquanto o valor era carregado: o valor pode ter lido dados antigos
+        Long value = cache.get("a", () -> {
+            cache.invalidateIf(key -> key.equals("b"));
+            return 1L;
+        });
+
+        Assertions.assertEquals(1L, value);
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertFalse(cache.put("a", 1L, cache.generation() - 1));
+    }
+}
@@ -0,0 +1,70 @@
+package com.devsuperior.dscatalog.services.cache;
+
+import com.devsuperior.dscatalog.projections.UserDetailsProjection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+public class UserDetailsCacheTests {
+
+    private UserDetailsCache cache;
+    private List<UserDetailsProjection> rows;
+    private int loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserDetailsCache(true, 100, 300, new SimpleMeterRegistry());
+        rows = List.of(Mockito.mock(UserDetailsProjection.class));
+        loads = 0;
+    }
+
+    @Test
+    public void getShouldLoadOnlyOnceWhileEntryIsValid() {
+
+        cache.get("maria@gmail.com", this::load);
+        cache.get("maria@gmail.com", this::load);
+
+        Assertions.assertEquals(1, loads);
+    }
+
+    @Test
+    public void getShouldNotCacheUnknownEmail() {
+
+        cache.get("nobody@gmail.com", () -> { loads++; return List.of(); });
+        cache.get("nobody@gmail.com", () -> { loads++; return List.of(); });
+
+        Assertions.assertEquals(2, loads);
+    }
+
+    @Test
+    public void invalidateShouldForceNewLoad() {
+
+        cache.get("maria@gmail.com", this::load);
+        cache.invalidate("maria@gmail.com", null);
+        cache.get("maria@gmail.com", this::load);
+
+        Assertions.assertEquals(2, loads);
+    }
+
+    @Test
+    public void getShouldNotStoreRowsLoadedBeforeInvalidation() {
+
+        // A troca de senha faz commit enquanto a consulta antiga ainda estava em andamento
+        cache.get("maria@gmail.com", () -> {
+            cache.invalidate("maria@gmail.com");
+            return load();
+        });
+        cache.get("maria@gmail.com", this::load);
+
+        Assertions.assertEquals(2, loads);
+    }
+
+    private List<UserDetailsProjection> load() {
+        loads++;
+        return rows;
+    }
+}
@@ -0,0 +1,41 @@
+package com.devsuperior.dscatalog.services.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LongPostingListTests {
+
+    private LongPostingList listOf(long... values) {
+        LongPostingList list = new LongPostingList();
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Test
+    public void addShouldKeepValuesSortedAndIgnoreDuplicates() {
+
+        LongPostingList list = listOf(5L, 1L, 3L, 3L, 10L, 2L);
+
+        Assertions.assertArrayEquals(new long[] {1L, 2L, 3L, 5L, 10L}, list.toArray());
+    }
+
+    @Test
+    public void removeShouldDeleteValueWhenPresent() {
+
+        LongPostingList list = listOf(1L, 2L, 3L);
+
+        Assertions.assertTrue(list.remove(2L));
+        Assertions.assertFalse(list.remove(20L));
+        Assertions.assertArrayEquals(new long[] {1L, 3L}, list.toArray());
+    }
+
+    @Test
+    public void intersectShouldReturnCommonValues() {
+
+        LongPostingList result = LongPostingList.intersect(listOf(1L, 3L, 5L, 7L), listOf(2L, 3L, 7L, 9L));
+
+        Assertions.assertArrayEquals(new long[] {3L, 7L}, result.toArray());
+    }
+}
@@ -0,0 +1,45 @@
+package com.devsuperior.dscatalog.services.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ProductNameSuggesterTests {
+
+    private ProductNameSuggester suggester;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        suggester = new ProductNameSuggester();
+        suggester.put(1L, "The Lord of the Rings");
+        suggester.put(2L, "Smart TV");
+        suggester.put(3L, "Macbook Pro");
+        suggester.put(4L, "PC Gamer");
+        suggester.put(5L, "PC Gamer Pro");
+    }
+
+    @Test
+    public void suggestShouldMatchPrefixOfAnyWord() {
+
+        Assertions.assertEquals(List.of("The Lord of the Rings"), suggester.suggest("lor", 10));
+        Assertions.assertEquals(List.of("Smart TV"), suggester.suggest("TV", 10));
+    }
+
+    @Test
+    public void suggestShouldRespectLimit() {
+
+        Assertions.assertEquals(1, suggester.suggest("pc", 1).size());
+    }
+
+    @Test
+    public void putShouldReplaceOldNameOfProduct() {
+
+        suggester.put(3L, "Notebook Dell");
+
+        Assertions.assertTrue(suggester.suggest("mac", 10).isEmpty());
+        Assertions.assertEquals(List.of("Notebook Dell"), suggester.suggest("dell", 10));
+    }
+}
@@ -0,0 +1,167 @@
+package com.devsuperior.dscatalog.services.search;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryFacetDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.List;
+
+public class ProductSearchIndexTests {
+
+    private ProductSearchIndex index;
+
+    private ProductDTO product(Long id, String name, String description, Double price, Long categoryId) {
+        ProductDTO dto = new ProductDTO(id, name, description, price, "", Instant.parse("2020-10-20T03:00:00Z"));
+        dto.getCategories().add(new CategoryDTO(categoryId, "Category " + categoryId));
+        return dto;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        index = new ProductSearchIndex();
+        index.put(product(1L, "Smart TV", "Televisão 4K", 2190.0, 1L));
+        index.put(product(2L, "Macbook Pro", "Notebook da Apple", 1250.0, 3L));
+        index.put(product(3L, "The Lord of the Rings", "Livro", 90.5, 2L));
+    }
+
+    @Test
+    public void searchShouldMatchAnyPartOfNameIgnoringCaseLikeDatabase() {
+
+        Page<ProductDTO> result = index.search(new ProductFilterDTO("BOOK", "0"), PageRequest.of(0, 10));
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Assertions.assertEquals(2L, result.getContent().get(0).getId());
+        Assertions.assertEquals(1, index.search(new ProductFilterDTO("tv", "0"), PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertEquals(1, index.search(new ProductFilterDTO("rd of th", "0"), PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void searchShouldNotMatchDescription() {
+
+        Assertions.assertEquals(0, index.search(new ProductFilterDTO("Televisão", "0"), PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void searchShouldReturnCopiesOfIndexedProducts() {
+
+        index.search(new ProductFilterDTO("macbook", "0"), PageRequest.of(0, 10)).getContent().get(0).getCategories().get(0).setName("Alterada");
+
+        ProductDTO result = index.search(new ProductFilterDTO("macbook", "0"), PageRequest.of(0, 10)).getContent().get(0);
+        Assertions.assertEquals("Category 3", result.getCategories().get(0).getName());
+    }
+
+    @Test
+    public void searchShouldFilterByCategory() {
+
+        Page<ProductDTO> result = index.search(new ProductFilterDTO("", "2,3"), PageRequest.of(0, 10, Sort.by("price")));
+
+        Assertions.assertEquals(2, result.getTotalElements());
+        Assertions.assertEquals(3L, result.getContent().get(0).getId());
+        Assertions.assertEquals(2L, result.getContent().get(1).getId());
+    }
+
+    @Test
+    public void searchShouldPageThroughSortedOrderKeepingIdOrderOnTies() {
+
+        index.put(product(4L, "Notebook Dell", "Notebook", 1250.0, 3L));
+        index.put(product(5L, "Notebook Asus", "Notebook", 1250.0, 3L));
+        ProductFilterDTO filter = new ProductFilterDTO("", "0");
+
+        // Igual ao ORDER BY price DESC, id ASC do banco
+        Page<ProductDTO> first = index.search(filter, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "price")));
+        Page<ProductDTO> second = index.search(filter, PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        Assertions.assertEquals(5, first.getTotalElements());
+        Assertions.assertEquals(List.of(1L, 2L), first.getContent().stream().map(ProductDTO::getId).toList());
+        Assertions.assertEquals(List.of(4L, 5L), second.getContent().stream().map(ProductDTO::getId).toList());
+    }
+
+    @Test
+    public void searchShouldSortNamesInBinaryOrder() {
+
+        index.put(product(4L, "apple TV", "TV", 900.0, 1L));
+
+        Page<ProductDTO> result = index.search(new ProductFilterDTO("", "0"), PageRequest.of(0, 10, Sort.by("name")));
+
+        // Maiusculas antes de minusculas, como o ORDER BY name do H2 (e do PostgreSQL com collation "C")
+        Assertions.assertEquals(List.of(2L, 1L, 3L, 4L), result.getContent().stream().map(ProductDTO::getId).toList());
+    }
+
+    @Test
+    public void searchShouldSortCandidatesOfNameSearch() {
+
+        index.put(product(4L, "Smart Watch", "Relogio", 900.0, 1L));
+
+        Page<ProductDTO> result = index.search(new ProductFilterDTO("smart", "0"), PageRequest.of(0, 1, Sort.by("price")));
+
+        Assertions.assertEquals(2, result.getTotalElements());
+        Assertions.assertEquals(4L, result.getContent().get(0).getId());
+    }
+
+    @Test
+    public void facetsShouldApplyRangesAndIgnoreCategoryFilter() {
+
+        List<CategoryFacetDTO> facets = index.facets(new ProductFilterDTO("", "1", 100.0, null, null, null));
+
+        Assertions.assertEquals(2, facets.size());
+        Assertions.assertEquals(1L, facets.get(0).getCategoryId());
+        Assertions.assertEquals(1L, facets.get(0).getCount());
+        Assertions.assertEquals(3L, facets.get(1).getCategoryId());
+    }
+
+    @Test
+    public void putShouldReplacePreviousTermsOfProduct() {
+
+        index.put(product(2L, "Notebook Dell", "Notebook", 1000.0, 3L));
+
+        Assertions.assertEquals(0, index.search(new ProductFilterDTO("macbook", "0"), PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertEquals(1, index.search(new ProductFilterDTO("dell", "0"), PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void searchShouldReturnNullWhenSortIsNotSupported() {
+
+        Assertions.assertNull(index.search(new ProductFilterDTO("", "0"), PageRequest.of(0, 10, Sort.by("imgUrl"))));
+    }
+
+    @Test
+    public void searchFuzzyShouldFindProductsWithMisspelledWords() {
+
+        Assertions.assertEquals(0, index.search(new ProductFilterDTO("Macbok", "0"), PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertEquals(2L, index.searchFuzzy(new ProductFilterDTO("Macbok", "0"), PageRequest.of(0, 10)).getContent().get(0).getId());
+        Assertions.assertEquals(1L, index.searchFuzzy(new ProductFilterDTO("smat tv", "0"), PageRequest.of(0, 10)).getContent().get(0).getId());
+    }
+
+    @Test
+    public void searchFuzzyShouldApplyPriceRange() {
+
+        index.put(product(4L, "Macbook Air", "Notebook", 900.0, 3L));
+
+        Page<ProductDTO> result = index.searchFuzzy(new ProductFilterDTO("macbok", "0", null, 1000.0, null, null),
+                PageRequest.of(0, 10));
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Assertions.assertEquals(4L, result.getContent().get(0).getId());
+    }
+
+    @Test
+    public void searchFuzzyShouldRankCloserMatchesFirst() {
+
+        index.put(product(4L, "Macbok Air", "Notebook", 900.0, 3L));
+
+        Page<ProductDTO> result = index.searchFuzzy(new ProductFilterDTO("macbok", "0"), PageRequest.of(0, 10));
+
+        Assertions.assertEquals(2, result.getTotalElements());
+        Assertions.assertEquals(4L, result.getContent().get(0).getId());
+        Assertions.assertEquals(2L, result.getContent().get(1).getId());
+    }
+}
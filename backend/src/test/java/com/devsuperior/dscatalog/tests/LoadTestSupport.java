@@ -0,0 +1,80 @@
+package com.devsuperior.dscatalog.tests;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+// Classe auxiliar dos testes de carga (PlatformThreadsLoadTests e VirtualThreadsLoadTests)
+// Dispara requisições GET com no maximo "concurrency" ao mesmo tempo e mede vazão e latencia (p50, p99 e maxima)
+// O cliente usa threads virtuais pra que a concorrencia seja limitada pelo servidor e nao pelo proprio teste
+public class LoadTestSupport {
+
+    // uris monta a URI da requisição de numero i (ex. variar o id do produto)
+    public static Result run(String label, int concurrency, int totalRequests, IntFunction<URI> uris) throws Exception {
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        long[] latencies = new long[totalRequests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore permits = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        // o close() do executor espera todas as requisições terminarem
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < totalRequests; i++) {
+                permits.acquire();
+                int index = i;
+                executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(uris.apply(index)).GET().build();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    finally {
+                        latencies[index] = System.nanoTime() - t0;
+                        permits.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        Result result = new Result(
+                totalRequests / (elapsed / 1_000_000_000.0),
+                latencies[percentileIndex(totalRequests, 0.50)] / 1_000_000.0,
+                latencies[percentileIndex(totalRequests, 0.99)] / 1_000_000.0,
+                latencies[totalRequests - 1] / 1_000_000.0,
+                errors.get());
+
+        System.out.printf("%s: %d requisições, concorrencia %d -> %.0f req/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms, erros %d%n",
+                label, totalRequests, concurrency, result.throughput(), result.p50Millis(), result.p99Millis(),
+                result.maxMillis(), result.errors());
+        return result;
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        return Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+    }
+
+    public record Result(double throughput, double p50Millis, double p99Millis, double maxMillis, int errors) {
+    }
+}
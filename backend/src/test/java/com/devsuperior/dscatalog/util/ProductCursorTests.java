@@ -0,0 +1,33 @@
+package com.devsuperior.dscatalog.util;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ProductCursorTests {
+
+    @Test
+    public void decodeShouldReturnEncodedPosition() {
+
+        String cursor = new ProductCursor("PC Gamer: Tera", 21L).encode();
+
+        ProductCursor result = ProductCursor.decode(cursor);
+
+        Assertions.assertEquals("PC Gamer: Tera", result.getName());
+        Assertions.assertEquals(21L, result.getId());
+    }
+
+    @Test
+    public void decodeShouldReturnFirstWhenCursorIsBlank() {
+
+        Assertions.assertSame(ProductCursor.FIRST, ProductCursor.decode(""));
+    }
+
+    @Test
+    public void decodeShouldThrowBadRequestExceptionWhenCursorIsInvalid() {
+
+        Assertions.assertThrows(BadRequestException.class, () -> {
+            ProductCursor.decode("not a cursor");
+        });
+    }
+}